@@ -0,0 +1,53 @@
+import java.util.concurrent.TimeUnit; // Unidades del reporte
+import org.openjdk.jmh.annotations.*; // Anotaciones de JMH
+
+// Cinematica directa (tablas y Math) e inversa de forma cerrada, lo que el modo cartesiano
+// resuelve en cada ciclo de control, y las consultas del MapaSeguridad que revisa cada
+// movimiento. Ninguna crea objetos: escriben en arreglos del estado
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchCinematica {
+    private final Cinematica cinematica = new Cinematica();
+    private final double[] punta = new double[3];
+    private final double[] referencia = {90, 120, 60};
+    private final double[] angulos = new double[3];
+    private final MapaSeguridad mapa = MapaSeguridad.calcular(cinematica);
+    private int paso;
+
+    @Benchmark
+    public double directaTablas() {
+        paso = (paso + 1) % 181; // Cambia la pose para no medir siempre lo mismo
+        cinematica.directa(paso, 120, 60, punta);
+        return punta[0];
+    }
+
+    @Benchmark
+    public double directaContinua() {
+        paso = (paso + 1) % 181;
+        cinematica.directa(paso + 0.5, 120.25, 60.75, punta);
+        return punta[0];
+    }
+
+    @Benchmark
+    public boolean inversa() {
+        paso = (paso + 1) % 100;
+        return cinematica.inversa(80 + paso, 40, paso - 50, referencia, angulos);
+    }
+
+    @Benchmark
+    public boolean inversaSegura() {
+        paso = (paso + 1) % 100;
+        return mapa.alcanzable(80 + paso, 40, paso - 50)
+                && cinematica.inversa(80 + paso, 40, paso - 50, referencia, angulos, mapa);
+    }
+
+    @Benchmark
+    public boolean permitida() {
+        paso = (paso + 1) % 181;
+        return mapa.permitida(paso, 180 - paso);
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.concurrent.TimeUnit; // Unidades del reporte
+import org.openjdk.jmh.annotations.*; // Anotaciones de JMH
+
+// Ciclo de control: ControlArduino.mandarDatos con un mando sintetico y la publicacion
+// del estado del brazo que lee la vista (ModeloBrazo.publicar).
+// Con el stick sostenido el modo digital solo da un paso cada PERIODO_REPETICION (50 ms),
+// asi que mandarDatos reinicia la repeticion en cada ciclo para medir el armado y envio de
+// la trama; mandarDatosSinPaso mide el ciclo entre pasos (stick sostenido, sin comandos)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchControl {
+    private ControlArduino control;
+    private ModeloBrazo modelo;
+    private int[][] poses;
+    private int ciclo;
+
+    @Setup
+    public void preparar() {
+        PuertoSerial puerto = new PuertoSerial();
+        puerto.setTransport(new TransporteLoopback());
+        puerto.abrirPuerto();
+        control = new ControlArduino(new ControlXboxSintetico(), puerto);
+        modelo = new ModeloBrazo();
+        modelo.agregarOyente(estado -> { }); // Como la vista, un oyente suscrito
+        poses = new int[][] {{92, 88, 92, 85}, {90, 90, 90, 90}};
+    }
+
+    @TearDown
+    public void cerrar() {
+        control.arduino.cerrarPuerto();
+    }
+
+    @Benchmark
+    public void mandarDatos() {
+        control.reiniciarRepeticion();
+        control.mandarDatos();
+    }
+
+    @Benchmark
+    public void mandarDatosSinPaso() {
+        control.mandarDatos();
+    }
+
+    @Benchmark
+    public EstadoBrazo publicarEstado() {
+        ciclo ^= 1;
+        return modelo.publicar(poses[ciclo], ProtocoloBinario.PASOS_DETENIDO);
+    }
+}
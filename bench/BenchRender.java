@@ -0,0 +1,43 @@
+import java.awt.Graphics2D; // Contexto de dibujo
+import java.awt.image.BufferedImage; // Lienzo fuera de pantalla
+import java.util.concurrent.TimeUnit; // Unidades del reporte
+import org.openjdk.jmh.annotations.*; // Anotaciones de JMH
+
+// Dibujo del brazo (DibujoBrazo.dibujar y project) en una imagen fuera de pantalla
+// del mismo tamano que la ventana del juego. Con -prof gc se ve que dibujar ya no crea
+// objetos por cuadro (los degradados se guardan por largo de segmento)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class BenchRender {
+    private BufferedImage imagen;
+    private Graphics2D g2;
+    private final int[] angulos = {90, 45, 135, 60};
+    private final DibujoBrazo dibujo = new DibujoBrazo();
+
+    @Setup
+    public void preparar() {
+        imagen = new BufferedImage(1200, 800, BufferedImage.TYPE_INT_ARGB);
+        g2 = imagen.createGraphics();
+    }
+
+    @TearDown
+    public void cerrar() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage dibujarBrazo() {
+        angulos[0] = (angulos[0] + 1) % 181; // Cambia la pose para no medir siempre lo mismo
+        dibujo.dibujar(g2, angulos, 600, 500);
+        return imagen;
+    }
+
+    @Benchmark
+    public int project() {
+        return DibujoBrazo.project(73.5, 41.2, -12.8, 600, 500).x;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.concurrent.TimeUnit; // Unidades del reporte
+import org.openjdk.jmh.annotations.*; // Anotaciones de JMH
+
+// Costo de encolar comandos en PuertoSerial contra un transporte en memoria.
+// El hilo escritor vacia la cola en segundo plano, asi que esto mide lo que paga
+// el hilo de control por cada envio.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchSerial {
+    private PuertoSerial puerto;
+    private final byte[] trama = ProtocoloBinario.codificar(1, new int[] {90, 45, 135, 10}, ProtocoloBinario.PASOS_DETENIDO);
+
+    @Setup
+    public void preparar() {
+        puerto = new PuertoSerial();
+        puerto.setTransport(new TransporteLoopback());
+        puerto.abrirPuerto();
+    }
+
+    @TearDown
+    public void cerrar() {
+        puerto.cerrarPuerto();
+    }
+
+    @Benchmark
+    public void enviarDatosAscii() {
+        puerto.enviarDatos("k");
+    }
+
+    @Benchmark
+    public void enviarTramaBinaria() {
+        puerto.enviarBytes(trama);
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.concurrent.TimeUnit; // Unidades del reporte
+import org.openjdk.jmh.annotations.*; // Anotaciones de JMH
+
+// Un ciclo de SesionBrazos (un sondeo de los mandos y mandarDatos de cada brazo) con
+// varios brazos en transportes en memoria, cada uno con su mando sintetico o todos con
+// el mismo (espejo). El costo por ciclo deberia crecer de forma lineal con los brazos.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchSesion {
+    @Param({"1", "2", "4", "8"})
+    public int brazos;
+
+    @Param({"false", "true"})
+    public boolean espejo;
+
+    private SesionBrazos sesion;
+
+    @Setup
+    public void preparar() {
+        ConcentradorMandos concentrador = new ConcentradorMandos(null);
+        sesion = new SesionBrazos(concentrador, 1000, 1);
+        ControlXbox compartido = new ControlXboxSintetico();
+        concentrador.registrar(compartido);
+        for (int i = 0; i < brazos; i++) {
+            ControlXbox mando = compartido;
+            if (!espejo && i > 0) {
+                mando = new ControlXboxSintetico();
+                concentrador.registrar(mando);
+            }
+            PuertoSerial puerto = new PuertoSerial();
+            puerto.setTransport(new TransporteLoopback());
+            puerto.abrirPuerto();
+            sesion.agregarBrazo(puerto, mando);
+        }
+    }
+
+    @TearDown
+    public void cerrar() {
+        for (ControlArduino control : sesion.getBrazos()) control.arduino.cerrarPuerto();
+    }
+
+    @Benchmark
+    public void ciclo() {
+        sesion.ciclo();
+    }
+}
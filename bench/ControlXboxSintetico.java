@@ -0,0 +1,24 @@
+// ControlXbox que no abre SDL y alterna entre dos estados fijos en cada lectura,
+// para que cada ciclo tenga cambios (sticks, bumpers y gatillos activos)
+public class ControlXboxSintetico extends ControlXbox {
+    private final EstadoMando[] estados = {
+            EstadoSintetico.crear(0.9f, -0.9f, 0.9f, true, false, 0.8f, 0f),
+            EstadoSintetico.crear(-0.9f, 0.9f, -0.9f, false, true, 0f, 0.8f)
+    };
+    private int siguiente;
+
+    public ControlXboxSintetico() {
+        super(null);
+    }
+
+    @Override
+    protected void leerEstado(EstadoMando destino) {
+        siguiente ^= 1;
+        destino.copiar(estados[siguiente]);
+    }
+
+    @Override
+    public void shutdown() {
+        // No hay SDL que cerrar
+    }
+}
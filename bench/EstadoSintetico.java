@@ -0,0 +1,20 @@
+// Fabrica fotos del mando sin SDL ni control conectado, solo para las mediciones
+public final class EstadoSintetico {
+    private EstadoSintetico() {
+        // Evitar instanciación
+    }
+
+    public static EstadoMando crear(float leftStickX, float leftStickY, float rightStickY,
+                                    boolean lb, boolean rb, float leftTrigger, float rightTrigger) {
+        EstadoMando s = new EstadoMando();
+        s.setConectado(true);
+        s.poner(ControlXbox.Eje.LEFT_X, leftStickX);
+        s.poner(ControlXbox.Eje.LEFT_Y, leftStickY);
+        s.poner(ControlXbox.Eje.RIGHT_Y, rightStickY);
+        s.poner(ControlXbox.Boton.LB, lb);
+        s.poner(ControlXbox.Boton.RB, rb);
+        s.poner(ControlXbox.Eje.LEFT_TRIGGER, leftTrigger);
+        s.poner(ControlXbox.Eje.RIGHT_TRIGGER, rightTrigger);
+        return s;
+    }
+}
@@ -0,0 +1,11 @@
+#!/bin/sh
+# Compila y ejecuta las mediciones JMH.
+# Requiere en bench/lib los jars de JMH (jmh-core, jmh-generator-annprocess,
+# jopt-simple y commons-math3) y en lib los del proyecto (jSerialComm y Jamepad).
+# Cualquier argumento extra se pasa a JMH, por ejemplo: ./bench/ejecutar.sh BenchControl
+set -e
+cd "$(dirname "$0")/.."
+rm -rf out/bench
+mkdir -p out/bench
+javac -encoding UTF-8 -cp "lib/*:bench/lib/*" -processorpath "bench/lib/*" -d out/bench src/*.java bench/*.java
+java -cp "out/bench:lib/*:bench/lib/*" org.openjdk.jmh.Main -prof gc "$@"
@@ -0,0 +1,122 @@
+import java.util.Set; // Hilos y ambitos hijos vivos
+import java.util.concurrent.ConcurrentHashMap; // Conjuntos compartidos entre hilos
+import java.util.concurrent.TimeUnit; // Tiempo de espera al cerrar
+
+// Ambito de los hilos que hablan con los dispositivos (escritor y supervisor de cada puerto,
+// lector de los transportes TCP y pty, sondeos del descubridor, conexion de la vista). Cada
+// tarea corre en un hilo virtual, asi una lectura o espera bloqueante no ocupa un hilo de
+// plataforma. El puerto serie real no tiene lector aqui: jSerialComm entrega los datos en su
+// propio hilo de eventos (ver TransporteSerial), que se detiene al cerrar el puerto.
+// Los ambitos forman un arbol (sesion -> puerto): cerrar uno cierra primero sus hijos,
+// interrumpe sus hilos y espera a que terminen, de modo que al salir de una sesion no queda
+// ningun hilo suelto.
+// Es la idea de StructuredTaskScope, que en Java 21 todavia es preview.
+public final class AmbitoDispositivos implements AutoCloseable {
+    public static final long ESPERA_CIERRE = 1000; // Milisegundos para que terminen los hilos al cerrar
+
+    private static final AmbitoDispositivos GLOBAL = new AmbitoDispositivos("Dispositivos", null);
+
+    private final String nombre;
+    private final AmbitoDispositivos padre;
+    private final Set<Thread> hilos = ConcurrentHashMap.newKeySet();
+    private final Set<AmbitoDispositivos> hijos = ConcurrentHashMap.newKeySet();
+    private volatile boolean cerrado;
+
+    private AmbitoDispositivos(String nombre, AmbitoDispositivos padre) {
+        this.nombre = nombre;
+        this.padre = padre;
+    }
+
+    // Ambito de todo el programa, para lo que no pertenece a una sesion
+    public static AmbitoDispositivos global() {
+        return GLOBAL;
+    }
+
+    // Crea un ambito hijo que se cierra junto con este
+    public AmbitoDispositivos abrir(String nombre) {
+        if(cerrado) {
+            throw new IllegalStateException("Ambito cerrado: " + this.nombre);
+        }
+        AmbitoDispositivos hijo = new AmbitoDispositivos(this.nombre + "/" + nombre, this);
+        hijos.add(hijo);
+        if(cerrado) { // Se cerro mientras se creaba el hijo
+            hijo.cerrar();
+            throw new IllegalStateException("Ambito cerrado: " + this.nombre);
+        }
+        return hijo;
+    }
+
+    // Arranca la tarea en un hilo virtual del ambito; el hilo sale del ambito al terminar
+    public Thread iniciar(String tarea, Runnable cuerpo) {
+        if(cerrado) {
+            throw new IllegalStateException("Ambito cerrado: " + nombre);
+        }
+        Thread hilo = Thread.ofVirtual().name(nombre + "/" + tarea).unstarted(() -> {
+            try {
+                cuerpo.run();
+            } catch(RuntimeException e) {
+                if(!cerrado) e.printStackTrace();
+            } finally {
+                hilos.remove(Thread.currentThread());
+            }
+        });
+        hilos.add(hilo); // Antes de arrancar, para que el finally siempre lo encuentre
+        if(cerrado) { // Se cerro mientras se creaba el hilo y cerrar ya no lo vio
+            hilos.remove(hilo);
+            throw new IllegalStateException("Ambito cerrado: " + nombre);
+        }
+        hilo.start();
+        return hilo;
+    }
+
+    // Cierra los hijos, interrumpe los hilos y espera a que terminen
+    public void cerrar() {
+        if(cerrado) return;
+        cerrado = true;
+        for(AmbitoDispositivos hijo : hijos) hijo.cerrar();
+        for(Thread hilo : hilos) hilo.interrupt();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ESPERA_CIERRE);
+        for(Thread hilo : hilos) {
+            if(hilo == Thread.currentThread()) continue; // Un hilo del ambito que lo cierra no se espera a si mismo
+            long restante = limite - System.nanoTime();
+            if(restante <= 0) break;
+            try {
+                hilo.join(TimeUnit.NANOSECONDS.toMillis(restante) + 1);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if(!hilos.isEmpty()) {
+            System.out.println("Hilos sin terminar en " + nombre + ": " + hilos.size());
+        }
+        if(padre != null) padre.hijos.remove(this);
+    }
+
+    @Override
+    public void close() {
+        cerrar();
+    }
+
+    // Funciones de consulta
+    public String getNombre() {
+        return nombre;
+    }
+
+    public boolean isCerrado() {
+        return cerrado;
+    }
+
+    // Hilos vivos de este ambito y de sus hijos
+    public int getHilosVivos() {
+        int total = hilos.size();
+        for(AmbitoDispositivos hijo : hijos) total += hijo.getHilosVivos();
+        return total;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del AmbitoDispositivos
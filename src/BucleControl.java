@@ -0,0 +1,169 @@
+import java.util.concurrent.atomic.AtomicLong; // Contadores leidos desde otros hilos
+import java.util.concurrent.locks.LockSupport; // Espera de alta resolucion
+
+// Ciclo de control de frecuencia fija en un hilo propio. Las fechas limite se calculan
+// sobre System.nanoTime (sin acumular deriva) y la espera combina park hasta casi la
+// fecha y espera activa el ultimo tramo. Una excepcion en la tarea se cuenta y el ciclo
+// sigue vivo, a diferencia de java.util.Timer.
+public class BucleControl {
+    // Que hacer cuando la tarea tarda mas que un periodo
+    public enum PoliticaRetraso {
+        SALTAR,   // Se pierden los ciclos atrasados y se sigue en la siguiente fecha de la rejilla
+        RECUPERAR // Se ejecutan seguidos los ciclos atrasados (hasta MAX_RECUPERAR)
+    }
+
+    public static final long UMBRAL_ESPERA_ACTIVA = 200_000L; // Nanosegundos finales que se esperan girando
+    public static final int MAX_RECUPERAR = 5; // Ciclos atrasados maximos que se recuperan
+    private static final int MAX_ERRORES_IMPRESOS = 10; // Para no inundar la consola a 1 kHz
+
+    private final String nombre;
+    private final long periodo; // Nanosegundos
+    private final PoliticaRetraso politica;
+    private final Runnable tarea;
+    private volatile boolean corriendo;
+    private volatile Thread hilo;
+
+    private final HistogramaLatencia periodos = new HistogramaLatencia("Periodo del ciclo");
+    private final HistogramaLatencia jitter = new HistogramaLatencia("Retraso del ciclo");
+    private final AtomicLong ciclos = new AtomicLong();
+    private final AtomicLong retrasos = new AtomicLong(); // Ciclos que no terminaron a tiempo
+    private final AtomicLong saltados = new AtomicLong(); // Ciclos perdidos por la politica SALTAR
+    private final AtomicLong errores = new AtomicLong(); // Excepciones de la tarea
+    private volatile long ultimoRetraso; // Retraso del ciclo en curso, para la telemetria
+
+    // Constructor
+    public BucleControl(String nombre, double frecuencia, PoliticaRetraso politica, Runnable tarea) {
+        if(frecuencia <= 0 || frecuencia > 10_000) {
+            throw new IllegalArgumentException("Frecuencia fuera de rango: " + frecuencia);
+        }
+        this.nombre = nombre;
+        this.periodo = Math.round(1e9 / frecuencia);
+        this.politica = politica;
+        this.tarea = tarea;
+    }
+
+    // Funciones para arrancar y detener el ciclo
+    public synchronized void iniciar() {
+        if(corriendo) return;
+        corriendo = true;
+        Thread t = new Thread(this::ciclo, nombre);
+        t.setDaemon(true);
+        t.setPriority(Thread.MAX_PRIORITY);
+        hilo = t;
+        t.start();
+    }
+
+    public synchronized void detener() {
+        corriendo = false;
+        Thread t = hilo;
+        hilo = null;
+        if(t == null) return;
+        LockSupport.unpark(t);
+        if(t != Thread.currentThread()) {
+            try {
+                t.join(1000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isCorriendo() {
+        return corriendo;
+    }
+
+    private void ciclo() {
+        long siguiente = System.nanoTime() + periodo;
+        long anterior = 0;
+        while(corriendo) {
+            esperarHasta(siguiente);
+            if(!corriendo) break;
+
+            long inicio = System.nanoTime();
+            jitter.registrar(inicio - siguiente);
+            ultimoRetraso = inicio - siguiente;
+            if(anterior != 0) periodos.registrar(inicio - anterior);
+            anterior = inicio;
+            ejecutar();
+
+            siguiente += periodo;
+            long atraso = System.nanoTime() - siguiente;
+            if(atraso > 0) {
+                retrasos.incrementAndGet();
+                long perdidos = atraso / periodo + 1;
+                if(politica == PoliticaRetraso.SALTAR) {
+                    siguiente += perdidos * periodo; // Siguiente fecha futura, sin perder la rejilla
+                    saltados.addAndGet(perdidos);
+                } else if(perdidos > MAX_RECUPERAR) {
+                    long descartados = perdidos - MAX_RECUPERAR;
+                    siguiente += descartados * periodo;
+                    saltados.addAndGet(descartados);
+                }
+            }
+        }
+    }
+
+    private void ejecutar() {
+        try {
+            tarea.run();
+            ciclos.incrementAndGet();
+        } catch(Exception e) {
+            if(errores.incrementAndGet() <= MAX_ERRORES_IMPRESOS) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Duerme hasta poco antes de la fecha limite y gira el ultimo tramo
+    private void esperarHasta(long fecha) {
+        while(corriendo) {
+            long restante = fecha - System.nanoTime();
+            if(restante <= 0) return;
+            if(restante > UMBRAL_ESPERA_ACTIVA) {
+                LockSupport.parkNanos(restante - UMBRAL_ESPERA_ACTIVA);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // Funciones para consultar las estadisticas
+    public long getPeriodoNanos() {
+        return periodo;
+    }
+
+    public HistogramaLatencia getPeriodos() {
+        return periodos;
+    }
+
+    public HistogramaLatencia getJitter() {
+        return jitter;
+    }
+
+    // Nanosegundos que se retraso el inicio del ciclo mas reciente
+    public long getUltimoRetraso() {
+        return ultimoRetraso;
+    }
+
+    public long getCiclos() {
+        return ciclos.get();
+    }
+
+    public long getRetrasos() {
+        return retrasos.get();
+    }
+
+    public long getSaltados() {
+        return saltados.get();
+    }
+
+    public long getErrores() {
+        return errores.get();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del BucleControl
@@ -0,0 +1,80 @@
+// Historial de las ultimas muestras de varias senales (angulos, comandos por segundo, cola,
+// retraso del ciclo) en arreglos primitivos de tamano fijo. Lo escribe un solo hilo, el del
+// ciclo de control, sin objetos ni candados: poner() llena la casilla siguiente y publicar()
+// la deja visible. La vista copia lo reciente a sus propios arreglos al dibujar; si el
+// escritor da la vuelta mientras se copia, se descartan las muestras que pudo pisar.
+public class BufferTelemetria {
+    private final int capacidad;
+    private final int mascara; // Capacidad - 1, la capacidad siempre es potencia de 2
+    private final long[] marcas; // System.nanoTime() de cada muestra
+    private final double[][] senales; // [senal][casilla]
+    private volatile long escritos; // Muestras publicadas; la escritura publica los arreglos
+
+    // Constructor, la capacidad se redondea a la siguiente potencia de 2
+    public BufferTelemetria(int senales, int capacidad) {
+        if(senales < 1 || capacidad < 2) {
+            throw new IllegalArgumentException("Telemetria sin senales o sin espacio: " + senales + "x" + capacidad);
+        }
+        int tam = Integer.highestOneBit(capacidad - 1) << 1;
+        this.capacidad = tam;
+        this.mascara = tam - 1;
+        this.marcas = new long[tam];
+        this.senales = new double[senales][tam];
+    }
+
+    // Funciones del hilo escritor
+    // Valor de una senal para la muestra en curso
+    public void poner(int senal, double valor) {
+        senales[senal][(int) (escritos & mascara)] = valor;
+    }
+
+    // Cierra la muestra en curso y la hace visible a los lectores
+    public void publicar(long marca) {
+        long n = escritos;
+        marcas[(int) (n & mascara)] = marca;
+        escritos = n + 1;
+    }
+
+    // Funciones de lectura (cualquier hilo)
+    // Copia las ultimas muestras de la senal (hasta valores.length) en orden, de la mas vieja
+    // a la mas nueva, y regresa cuantas copio
+    public int copiarRecientes(int senal, double[] valores, long[] marcasDestino) {
+        long fin = escritos;
+        int n = (int) Math.min(Math.min(fin, valores.length), capacidad - 1);
+        long inicio = fin - n;
+        double[] origen = senales[senal];
+        for(int i = 0; i < n; i++) {
+            int casilla = (int) ((inicio + i) & mascara);
+            valores[i] = origen[casilla];
+            marcasDestino[i] = marcas[casilla];
+        }
+        // El escritor puede estar llenando la casilla de la muestra escritos, que es la misma
+        // que la de escritos - capacidad; de escritos + 1 - capacidad en adelante nada se piso
+        long primeraValida = escritos + 1 - capacidad;
+        if(primeraValida > inicio) {
+            int pisadas = (int) Math.min(n, primeraValida - inicio);
+            n -= pisadas;
+            System.arraycopy(valores, pisadas, valores, 0, n);
+            System.arraycopy(marcasDestino, pisadas, marcasDestino, 0, n);
+        }
+        return n;
+    }
+
+    public long getEscritos() {
+        return escritos;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public int getSenales() {
+        return senales.length;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del BufferTelemetria
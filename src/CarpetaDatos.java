@@ -0,0 +1,18 @@
+import java.nio.file.Path; // Ruta de la carpeta
+
+// Carpeta del usuario donde el programa guarda lo que recuerda entre ejecuciones: velocidades
+// por puerto, perfil de dispositivos, mapeo del mando, grabaciones, mapa de seguridad,
+// latencias medidas y la configuracion del demonio. Cada clase pone ahi su propio archivo.
+public final class CarpetaDatos {
+    public static final Path RUTA = Path.of(System.getProperty("user.home"), ".brazokraken");
+
+    private CarpetaDatos() {
+        // Evitar instanciación
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del CarpetaDatos
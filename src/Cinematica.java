@@ -0,0 +1,154 @@
+// Cinematica de la cadena base / hombro / codo. Angulos en grados de servo (0 a 180, 90 es
+// el centro) y posiciones en las mismas unidades que los eslabones: x al frente, y hacia
+// arriba y z al lado, con el origen en el hombro.
+//
+// Directa: r = l1 cos(h) + l2 cos(h + c), y = l1 sin(h) + l2 sin(h + c), x = r cos(b), z = r sin(b)
+// con b, h, c = angulo - 90. Con angulos enteros (lo que mandan los servos) los senos y
+// cosenos salen de una tabla por medio grado, que tambien usa DibujoBrazo.
+// Inversa: forma cerrada del brazo de dos eslabones en el plano de la base; de las dos
+// soluciones (codo arriba o abajo) se queda la que cabe en los servos y esta mas cerca de
+// la pose actual, para que el brazo no salte de una a otra. Sin objetos ni ciclos, tarda
+// menos de un microsegundo y se puede resolver en cada ciclo de control.
+public final class Cinematica {
+    public static final double LARGO_BRAZO = 100; // Hombro a codo, por defecto
+    public static final double LARGO_ANTEBRAZO = 100; // Codo a pinza, por defecto
+
+    // Seno y coseno cada medio grado de -270 a 270: hombro + codo va de -180 a 180
+    // y la garra suma o resta hasta 45 mas
+    private static final int DESPLAZAMIENTO = 540;
+    private static final double[] SENO = new double[2 * DESPLAZAMIENTO + 1];
+    private static final double[] COSENO = new double[2 * DESPLAZAMIENTO + 1];
+    private static final double TOLERANCIA = 1e-9; // Grados, para aceptar los limites exactos
+
+    static {
+        for(int i = 0; i < SENO.length; i++) {
+            double radianes = Math.toRadians((i - DESPLAZAMIENTO) / 2.0);
+            SENO[i] = Math.sin(radianes);
+            COSENO[i] = Math.cos(radianes);
+        }
+    }
+
+    private final double l1;
+    private final double l2;
+
+    // Constructor
+    public Cinematica() {
+        this(LARGO_BRAZO, LARGO_ANTEBRAZO);
+    }
+
+    public Cinematica(double l1, double l2) {
+        if(!(l1 > 0) || !(l2 > 0)) {
+            throw new IllegalArgumentException("Largos de los eslabones invalidos: " + l1 + ", " + l2);
+        }
+        this.l1 = l1;
+        this.l2 = l2;
+    }
+
+    // Funciones de las tablas, el angulo va en medios grados relativos al centro (-540 a 540)
+    public static double seno(int mediosGrados) {
+        return SENO[mediosGrados + DESPLAZAMIENTO];
+    }
+
+    public static double coseno(int mediosGrados) {
+        return COSENO[mediosGrados + DESPLAZAMIENTO];
+    }
+
+    // Directa con angulos enteros de servo, desde las tablas; deja x, y, z en destino
+    public void directa(int base, int hombro, int codo, double[] destino) {
+        int b = 2 * (base - 90), h = 2 * (hombro - 90), hc = h + 2 * (codo - 90);
+        double r = l1 * coseno(h) + l2 * coseno(hc);
+        destino[0] = r * coseno(b);
+        destino[1] = l1 * seno(h) + l2 * seno(hc);
+        destino[2] = r * seno(b);
+    }
+
+    // Directa con angulos continuos (consignas que se estan integrando)
+    public void directa(double base, double hombro, double codo, double[] destino) {
+        double b = Math.toRadians(base - 90), h = Math.toRadians(hombro - 90), hc = h + Math.toRadians(codo - 90);
+        double r = l1 * Math.cos(h) + l2 * Math.cos(hc);
+        destino[0] = r * Math.cos(b);
+        destino[1] = l1 * Math.sin(h) + l2 * Math.sin(hc);
+        destino[2] = r * Math.sin(b);
+    }
+
+    // Inversa: angulos de servo (base, hombro, codo) que llevan la pinza a x, y, z. Usa
+    // referencia (los angulos actuales) para elegir la solucion y para la base cuando el
+    // punto esta sobre el eje. Regresa false sin tocar angulos si el punto no se alcanza
+    // o ninguna solucion cabe en los servos.
+    public boolean inversa(double x, double y, double z, double[] referencia, double[] angulos) {
+        return inversa(x, y, z, referencia, angulos, null);
+    }
+
+    // Igual, pero solo acepta las soluciones que el mapa permite (sin choques); null no restringe
+    public boolean inversa(double x, double y, double z, double[] referencia, double[] angulos, MapaSeguridad mapa) {
+        double r = Math.hypot(x, z);
+        double base = r < 1e-9 ? Math.toRadians(referencia[0] - 90) : Math.atan2(z, x);
+        // La base solo gira de -90 a 90: detras del hombro se gira al reves y se alcanza hacia atras
+        if(base > Math.PI / 2) {
+            base -= Math.PI;
+            r = -r;
+        } else if(base < -Math.PI / 2) {
+            base += Math.PI;
+            r = -r;
+        }
+
+        double cosCodo = (r * r + y * y - l1 * l1 - l2 * l2) / (2 * l1 * l2);
+        if(cosCodo < -1 - 1e-12 || cosCodo > 1 + 1e-12) return false; // Fuera del alcance o demasiado cerca
+        cosCodo = Math.max(-1, Math.min(1, cosCodo)); // Brazo estirado: el redondeo lo deja apenas fuera
+        double codoAbs = Math.acos(cosCodo);
+        double anguloPunto = Math.atan2(y, r);
+        double a0 = Math.toDegrees(base) + 90;
+
+        boolean hallada = false;
+        double mejorHombro = 0, mejorCodo = 0, mejorDistancia = Double.MAX_VALUE;
+        for(int signo = -1; signo <= 1; signo += 2) {
+            double codo = signo * codoAbs;
+            double hombro = anguloPunto - Math.atan2(l2 * Math.sin(codo), l1 + l2 * Math.cos(codo));
+            if(hombro > Math.PI) hombro -= 2 * Math.PI;
+            else if(hombro < -Math.PI) hombro += 2 * Math.PI;
+            double a1 = Math.toDegrees(hombro) + 90, a2 = Math.toDegrees(codo) + 90;
+            if(!enRango(a1) || !enRango(a2)) continue;
+            if(mapa != null && !mapa.permitida(a1, a2)) continue;
+            double distancia = Math.abs(a1 - referencia[1]) + Math.abs(a2 - referencia[2]);
+            if(distancia < mejorDistancia) {
+                mejorDistancia = distancia;
+                mejorHombro = a1;
+                mejorCodo = a2;
+                hallada = true;
+            }
+        }
+        if(!hallada || !enRango(a0)) return false;
+        angulos[0] = limitar(a0);
+        angulos[1] = limitar(mejorHombro);
+        angulos[2] = limitar(mejorCodo);
+        return true;
+    }
+
+    private static boolean enRango(double angulo) {
+        return angulo >= -TOLERANCIA && angulo <= 180 + TOLERANCIA;
+    }
+
+    private static double limitar(double angulo) {
+        return Math.max(0, Math.min(180, angulo));
+    }
+
+    // Funciones de consulta
+    public double getL1() {
+        return l1;
+    }
+
+    public double getL2() {
+        return l2;
+    }
+
+    // Distancia maxima del hombro a la pinza
+    public double getAlcance() {
+        return l1 + l2;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la Cinematica
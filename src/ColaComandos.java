@@ -0,0 +1,102 @@
+import java.util.concurrent.atomic.AtomicLong; // Indices de escritura y lectura compartidos entre hilos
+import java.util.concurrent.atomic.AtomicLongArray; // Secuencia de cada casilla del buffer circular
+
+// Cola acotada y sin bloqueos (buffer circular con secuencias por casilla) para los
+// comandos que van al Arduino. Varios hilos pueden encolar y desencolar a la vez.
+public class ColaComandos {
+    private final byte[][] buffer; // Casillas con los comandos pendientes
+    private final long[] marcas; // Momento (nanoTime) de origen de cada comando, para medir latencia
+    private final AtomicLongArray secuencias; // Indica si cada casilla esta libre u ocupada
+    private final int mascara; // Capacidad - 1, la capacidad siempre es potencia de 2
+    private final AtomicLong posEscritura = new AtomicLong(); // Siguiente posicion a escribir
+    private final AtomicLong posLectura = new AtomicLong(); // Siguiente posicion a leer
+
+    // Constructor, la capacidad se redondea a la siguiente potencia de 2
+    public ColaComandos(int capacidad) {
+        if(capacidad < 2) {
+            throw new IllegalArgumentException("La capacidad de la cola debe ser al menos 2");
+        }
+        int real = Integer.highestOneBit(capacidad - 1) << 1;
+        this.buffer = new byte[real][];
+        this.marcas = new long[real];
+        this.secuencias = new AtomicLongArray(real);
+        this.mascara = real - 1;
+        for(int i = 0; i < real; i++) {
+            this.secuencias.set(i, i);
+        }
+    }
+
+    // Intenta encolar un comando, regresa false si la cola esta llena
+    public boolean ofrecer(byte[] comando) {
+        return ofrecer(comando, System.nanoTime());
+    }
+
+    public boolean ofrecer(byte[] comando, long marca) {
+        long pos = posEscritura.get();
+        while(true) {
+            int idx = (int) (pos & mascara);
+            long dif = secuencias.get(idx) - pos;
+            if(dif == 0) {
+                if(posEscritura.compareAndSet(pos, pos + 1)) {
+                    buffer[idx] = comando;
+                    marcas[idx] = marca;
+                    secuencias.lazySet(idx, pos + 1);
+                    return true;
+                }
+                pos = posEscritura.get();
+            } else if(dif < 0) {
+                return false; // Cola llena
+            } else {
+                pos = posEscritura.get();
+            }
+        }
+    }
+
+    // Saca el comando mas antiguo, regresa null si la cola esta vacia
+    public byte[] sacar() {
+        return sacar(null);
+    }
+
+    // Igual que sacar(), y si se pasa un arreglo deja en marca[0] la marca del comando
+    public byte[] sacar(long[] marca) {
+        long pos = posLectura.get();
+        while(true) {
+            int idx = (int) (pos & mascara);
+            long dif = secuencias.get(idx) - (pos + 1);
+            if(dif == 0) {
+                if(posLectura.compareAndSet(pos, pos + 1)) {
+                    byte[] comando = buffer[idx];
+                    if(marca != null) marca[0] = marcas[idx];
+                    buffer[idx] = null;
+                    secuencias.lazySet(idx, pos + mascara + 1);
+                    return comando;
+                }
+                pos = posLectura.get();
+            } else if(dif < 0) {
+                return null; // Cola vacia
+            } else {
+                pos = posLectura.get();
+            }
+        }
+    }
+
+    // Numero aproximado de comandos pendientes
+    public int tamano() {
+        long dif = posEscritura.get() - posLectura.get();
+        return (int) Math.max(0, Math.min(dif, mascara + 1));
+    }
+
+    public boolean estaVacia() {
+        return tamano() == 0;
+    }
+
+    public int getCapacidad() {
+        return mascara + 1;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la ColaComandos
@@ -0,0 +1,78 @@
+import java.util.Arrays; // Crecimiento del arreglo de mandos
+import com.studiohartman.jamepad.ControllerManager; // Una sola instancia de SDL para todos los mandos
+
+// Todos los mandos de una sesion sobre un solo ControllerManager: SDL se inicia una vez y
+// se sondea una vez por ciclo (sondear), y despues cada mando toma su foto. Cada brazo
+// recibe el ControlXbox de su mando; varios brazos pueden compartir el mismo (modo espejo)
+// porque la foto es de solo lectura para quien la consume.
+public class ConcentradorMandos {
+    private final ControllerManager manager; // null si solo hay mandos registrados a mano
+    private volatile ControlXbox[] mandos = new ControlXbox[0];
+    private boolean iniciaSDL; // Este concentrador inicio SDL (cuenta en ControlXbox.isSDLEnUso)
+
+    // Constructor que inicia SDL
+    public ConcentradorMandos() {
+        this(new ControllerManager());
+        manager.initSDLGamepad();
+        ControlXbox.tomarSDL();
+        iniciaSDL = true;
+    }
+
+    // Constructor con un ControllerManager ya creado (o null para mandos sinteticos)
+    protected ConcentradorMandos(ControllerManager manager) {
+        this.manager = manager;
+    }
+
+    // Devuelve el mando del indice dado, creandolo la primera vez
+    public synchronized ControlXbox obtener(int indice) {
+        for(ControlXbox m : mandos) {
+            if(m.getIndice() == indice) return m;
+        }
+        if(manager == null) {
+            throw new IllegalArgumentException("Este concentrador no tiene SDL, registra los mandos a mano");
+        }
+        ControlXbox nuevo = new ControlXbox(manager, indice);
+        registrar(nuevo);
+        return nuevo;
+    }
+
+    // Agrega un mando propio (por ejemplo uno sintetico para mediciones)
+    public synchronized void registrar(ControlXbox mando) {
+        ControlXbox[] nuevos = Arrays.copyOf(mandos, mandos.length + 1);
+        nuevos[mandos.length] = mando;
+        mandos = nuevos; // Se publica el arreglo nuevo, sondear no toma el candado
+    }
+
+    public int getTotalConectados() {
+        return manager == null ? 0 : manager.getNumControllers();
+    }
+
+    public ControlXbox[] getMandos() {
+        return mandos.clone();
+    }
+
+    // Una sola actualizacion de SDL y una foto por mando; se llama al inicio de cada ciclo
+    public void sondear() {
+        if(manager != null) manager.update();
+        ControlXbox[] actuales = mandos;
+        for(int i = 0; i < actuales.length; i++) {
+            actuales[i].actualizarEstado();
+        }
+    }
+
+    // Cierra SDL una sola vez para todos los mandos (y no si otra sesion lo sigue usando)
+    public void cerrar() {
+        if(manager == null) return;
+        if(iniciaSDL) {
+            iniciaSDL = false;
+            if(!ControlXbox.soltarSDL()) return;
+        }
+        manager.quitSDLGamepad();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del ConcentradorMandos
@@ -1,15 +1,43 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import com.fazecast.jSerialComm.SerialPort;
 
+/**
+ * Ventana de configuración: detecta el mando y el Arduino y guarda lo elegido en el
+ * PerfilDispositivos, así Jugar se conecta directo a ellos sin volver a buscarlos.
+ * Al abrirse busca los dos a la vez, cada uno en un hilo virtual del ámbito de la ventana
+ * (el Arduino con el saludo en paralelo del DescubridorPuertos); cerrar la ventana cierra
+ * el ámbito e interrumpe lo que siga buscando.
+ */
 public class Configuracion extends JFrame {
+    private static final Color ROJO = new Color(244, 67, 54);
+    private static final Color VERDE = new Color(76, 175, 80);
+    private static final Color AZUL = new Color(33, 150, 243);
+    private static final String AUTOMATICA = "Automática (se negocia)";
+
     private final JLabel statusXbox = new JLabel("Sin detectar");
     private final JLabel statusArduino = new JLabel("Sin detectar");
-    // Tiempo en milisegundos que tarda la animación de búsqueda
-    public static final int DETECTION_DELAY = 1200;
+    private final JComboBox<String> comboBaudios = new JComboBox<>();
+    private final JButton btnDetectXbox = UIUtils.createButton("Detectar", AZUL);
+    private final JButton btnDetectArduino = UIUtils.createButton("Detectar", AZUL);
+
+    private final AmbitoDispositivos ambito = AmbitoDispositivos.global().abrir("Configuracion");
+    private final PerfilDispositivos perfil = PerfilDispositivos.leer();
+    private final Path archivoMapeo = MapeoControles.buscarArchivo();
+
+    // Lo último que se detectó; solo se usa en el EDT
+    private String mando;
+    private int indiceMando = -1;
+    private String puerto;
+    private String nombrePuerto;
 
     public Configuracion() {
         setTitle("Configuraciones");
-        setSize(500, 400);
+        setSize(560, 400);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
@@ -23,10 +51,9 @@ public class Configuracion extends JFrame {
         JLabel lblXbox = new JLabel("Control Xbox:");
         lblXbox.setFont(UIUtils.LABEL_FONT);
         xboxPanel.add(lblXbox);
-        statusXbox.setForeground(new Color(244, 67, 54));
+        statusXbox.setForeground(ROJO);
         statusXbox.setFont(UIUtils.LABEL_FONT);
         xboxPanel.add(statusXbox);
-        JButton btnDetectXbox = UIUtils.createButton("Detectar", new Color(33, 150, 243));
         xboxPanel.add(btnDetectXbox);
         main.add(xboxPanel);
 
@@ -35,70 +62,162 @@ public class Configuracion extends JFrame {
         JLabel lblArduino = new JLabel("Arduino:");
         lblArduino.setFont(UIUtils.LABEL_FONT);
         arduinoPanel.add(lblArduino);
-        statusArduino.setForeground(new Color(244, 67, 54));
+        statusArduino.setForeground(ROJO);
         statusArduino.setFont(UIUtils.LABEL_FONT);
         arduinoPanel.add(statusArduino);
-        JButton btnDetectArduino = UIUtils.createButton("Detectar", new Color(33, 150, 243));
         arduinoPanel.add(btnDetectArduino);
         main.add(arduinoPanel);
 
+        // Velocidad del puerto: automática o fija (el firmware ya está a esa velocidad)
+        JPanel baudiosPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel lblBaudios = new JLabel("Velocidad:");
+        lblBaudios.setFont(UIUtils.LABEL_FONT);
+        baudiosPanel.add(lblBaudios);
+        comboBaudios.setFont(UIUtils.LABEL_FONT);
+        comboBaudios.addItem(AUTOMATICA);
+        comboBaudios.addItem("9600");
+        for (int candidato : NegociadorBaudios.CANDIDATOS) comboBaudios.addItem(Integer.toString(candidato));
+        comboBaudios.setSelectedItem(perfil.getBaudios() > 0 ? Integer.toString(perfil.getBaudios()) : AUTOMATICA);
+        baudiosPanel.add(comboBaudios);
+        main.add(baudiosPanel);
+
+        // Mapeo que se guardará con el perfil
+        JPanel mapeoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JLabel lblMapeo = new JLabel();
+        lblMapeo.setFont(UIUtils.LABEL_FONT);
+        lblMapeo.setText("Mapeo: " + (archivoMapeo != null ? archivoMapeo.getFileName() : "por defecto"));
+        if (archivoMapeo != null) lblMapeo.setToolTipText(archivoMapeo.toAbsolutePath().toString());
+        mapeoPanel.add(lblMapeo);
+        main.add(mapeoPanel);
+
         // Panel inferior con botones de acción
         JPanel bottom = new JPanel(new FlowLayout(FlowLayout.RIGHT));
-        JButton btnGuardar = UIUtils.createButton("Guardar", new Color(76, 175, 80));
-        JButton btnRegresar = UIUtils.createButton("Regresar al menú", new Color(244, 67, 54));
+        JButton btnGuardar = UIUtils.createButton("Guardar", VERDE);
+        JButton btnRegresar = UIUtils.createButton("Regresar al menú", ROJO);
         bottom.add(btnGuardar);
         bottom.add(btnRegresar);
         main.add(Box.createVerticalGlue());
         main.add(bottom);
 
         // Listeners
-        btnDetectXbox.addActionListener(e -> detectar(this::simularDeteccion, statusXbox));
-        btnDetectArduino.addActionListener(e -> detectar(this::simularDeteccion, statusArduino));
+        btnDetectXbox.addActionListener(e -> detectarMando());
+        btnDetectArduino.addActionListener(e -> detectarArduino());
+        btnGuardar.addActionListener(e -> guardar());
+        btnRegresar.addActionListener(e -> dispose());
 
-        btnGuardar.addActionListener(e -> {
-            JOptionPane.showMessageDialog(this, "Configuraciones guardadas");
-            dispose();
+        // Al cerrar se interrumpe lo que siga buscando
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                ambito.cerrar();
+            }
         });
 
-        btnRegresar.addActionListener(e -> dispose());
+        // Los dos a la vez desde que se abre la ventana
+        detectarMando();
+        detectarArduino();
     }
 
-    // Simulación de detección real. Ajustar según implementación real
-    private boolean simularDeteccion() {
-        return Math.random() > 0.5; // Devuelve true/false aleatoriamente
+    /**
+     * Busca el mando en un hilo del ámbito: primero el del perfil (por su nombre en SDL),
+     * si no, el primero conectado. No se busca mientras una sesión de juego usa SDL: SDL es
+     * uno solo por proceso y la ventana puede seguir abierta mientras se juega.
+     */
+    private void detectarMando() {
+        if (ControlXbox.isSDLEnUso()) {
+            statusXbox.setText("En uso por el juego");
+            statusXbox.setForeground(ROJO);
+            return;
+        }
+        buscando(statusXbox, btnDetectXbox);
+        ambito.iniciar("mando", () -> {
+            String nombre = null;
+            int indice = -1;
+            try {
+                ControlXbox control = new ControlXbox();
+                try {
+                    indice = control.buscarControl(perfil.getMando(), perfil.getIndiceMando());
+                    for (int i = 0; indice < 0 && i < control.getNumControles(); i++) {
+                        if (control.getNombre(i) != null) indice = i;
+                    }
+                    if (indice >= 0) nombre = control.getNombre(indice);
+                } finally {
+                    control.shutdown();
+                }
+            } catch (RuntimeException | LinkageError e) {
+                System.out.println("No se pudo iniciar SDL: " + e.getMessage());
+            }
+            String encontrado = nombre;
+            int encontradoEn = indice;
+            SwingUtilities.invokeLater(() -> alDetectarMando(encontrado, encontradoEn));
+        });
     }
 
-    // Ejecuta detección en segundo plano con animación
-    private void detectar(java.util.concurrent.Callable<Boolean> tarea, JLabel destino) {
-        destino.setText("Buscando...");
-        destino.setForeground(new Color(33, 150, 243));
+    private void alDetectarMando(String nombre, int indice) {
+        if (ambito.isCerrado()) return;
+        mando = nombre;
+        indiceMando = indice;
+        mostrarResultado(statusXbox, btnDetectXbox, nombre == null ? null : nombre + " (#" + indice + ")");
+    }
 
-        JDialog dialog = new JDialog(this, "Buscando...", true);
-        JProgressBar bar = new JProgressBar();
-        bar.setIndeterminate(true);
-        dialog.add(bar);
-        dialog.setSize(200, 75);
-        dialog.setLocationRelativeTo(this);
+    /**
+     * Busca el Arduino en un hilo del ámbito con el DescubridorPuertos: la caché por
+     * VID/PID/serie y, si no, el saludo a todos los puertos candidatos a la vez.
+     */
+    private void detectarArduino() {
+        buscando(statusArduino, btnDetectArduino);
+        ambito.iniciar("arduino", () -> {
+            DescubridorPuertos descubridor = DescubridorPuertos.getInstancia();
+            descubridor.iniciarVigilancia(ambito);
+            SerialPort p = descubridor.buscarArduino();
+            String identificador = p == null ? null : TransporteSerial.identificadorDe(p);
+            String nombre = p == null ? null : p.getSystemPortName();
+            SwingUtilities.invokeLater(() -> alDetectarArduino(identificador, nombre));
+        });
+    }
 
-        SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Boolean doInBackground() throws Exception {
-                Thread.sleep(DETECTION_DELAY); // Simula retraso
-                return tarea.call();
-            }
+    private void alDetectarArduino(String identificador, String nombre) {
+        if (ambito.isCerrado()) return;
+        puerto = identificador;
+        nombrePuerto = nombre;
+        String texto = null;
+        if (nombre != null) texto = identificador.equals(nombre) ? nombre : nombre + " (" + identificador + ")";
+        mostrarResultado(statusArduino, btnDetectArduino, texto);
+    }
 
-            @Override
-            protected void done() {
-                dialog.dispose();
-                boolean ok = false;
-                try {
-                    ok = get();
-                } catch (Exception ignored) {}
-                destino.setText(ok ? "Detectado" : "No detectado");
-                destino.setForeground(ok ? new Color(76, 175, 80) : new Color(244, 67, 54));
-            }
-        };
-        worker.execute();
-        dialog.setVisible(true);
+    private void buscando(JLabel destino, JButton boton) {
+        boton.setEnabled(false);
+        destino.setText("Buscando...");
+        destino.setForeground(AZUL);
+    }
+
+    private void mostrarResultado(JLabel destino, JButton boton, String encontrado) {
+        boton.setEnabled(true);
+        destino.setText(encontrado != null ? encontrado : "No detectado");
+        destino.setForeground(encontrado != null ? VERDE : ROJO);
+    }
+
+    /**
+     * Guarda lo detectado en el perfil. Lo que no se detectó conserva lo que ya tenía.
+     */
+    private void guardar() {
+        if (mando == null && puerto == null && perfil.getMando() == null && perfil.getPuerto() == null) {
+            JOptionPane.showMessageDialog(this, "No hay dispositivos detectados para guardar");
+            return;
+        }
+        if (mando != null) perfil.setMando(mando, indiceMando);
+        if (puerto != null) perfil.setPuerto(puerto, nombrePuerto);
+        Object baudios = comboBaudios.getSelectedItem();
+        perfil.setBaudios(AUTOMATICA.equals(baudios) ? 0 : Integer.parseInt((String) baudios));
+        perfil.setMapeo(archivoMapeo);
+        try {
+            perfil.guardar();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "No se pudo guardar el perfil: " + ex.getMessage(),
+                    "Configuraciones", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JOptionPane.showMessageDialog(this, "Configuraciones guardadas");
+        dispose();
     }
 }
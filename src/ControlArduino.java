@@ -1,101 +1,686 @@
 
-import com.studiohartman.jamepad.ControllerState;
+import java.util.Arrays; // Limpieza de las tablas de cada ciclo
 
 public class ControlArduino {
     protected ControlXbox controlXbox; // Controlador Xbox
     protected PuertoSerial arduino;    // PuertoSerial conectado al Arduino
     
-    // Variable para guardar el estado del ciclo anterior
-    private ControllerState estadoAnterior;
+    // Copia del estado del ciclo anterior (la foto de ControlXbox se reutiliza en cada lectura)
+    private final EstadoMando estadoAnterior = new EstadoMando();
+    private boolean hayAnterior = false;
+
+    // Comandos acumulados durante el ciclo actual, se envian juntos al final
+    private final TramaComandos trama = new TramaComandos();
+
+    // Consignas absolutas para el protocolo binario (grados por cada comando relativo)
+    public static final int PASO_SERVO = 2;
+    public static final int PASO_PINZA = 5;
+    private final int[] consignas = {90, 90, 90, 90};
+    private byte motorPasos = ProtocoloBinario.PASOS_DETENIDO;
+    private int secuencia = 0;
+
+    // Repeticion de los movimientos relativos mientras se mantiene un stick o bumper.
+    // El ciclo de control puede correr mucho mas rapido que antes (ver BucleControl), asi
+    // que el primer paso sale en cuanto se mueve el stick y los siguientes cada
+    // PERIODO_REPETICION para conservar la velocidad original del brazo (2 grados / 50 ms).
+    public static final long PERIODO_REPETICION = 50_000_000L; // Nanosegundos
+    private long siguienteRepeticion;
+    private boolean ejesActivosAntes;
+
+    // Modo de los sticks: DIGITAL repite pasos fijos mientras se pasa la zona muerta,
+    // PROPORCIONAL convierte la inclinacion en velocidad angular e integra la consigna y
+    // CARTESIANO mueve la punta en linea recta (ver integrarCartesiano)
+    public enum ModoEjes { DIGITAL, PROPORCIONAL, CARTESIANO }
+    public static final double VELOCIDAD_MAXIMA = 120.0; // Grados por segundo con el stick al tope
+    public static final double VELOCIDAD_CARTESIANA = 150.0; // Unidades de los eslabones por segundo con el stick al tope
+    public static final float ZONA_MUERTA_PROPORCIONAL = 0.12f; // Menor que la digital para correcciones finas
+    public static final double DT_MAXIMO = 0.1; // Segundos, evita saltos despues de una pausa
+    public static final int MAX_PASOS_CICLO = 3; // Pasos relativos por servo y ciclo en ASCII
+    private ModoEjes modoEjes = ModoEjes.DIGITAL;
+    private double cuanto = 1.0; // Grados minimos de cambio para mandar una consigna nueva
+    private final double[] objetivos = {90, 90, 90, 90}; // Consignas continuas de cada servo
+    private final boolean[] conducidos = new boolean[4]; // Servos que un stick o una trayectoria movio en este ciclo
+    private long marcaAnterior; // Momento de la foto anterior, para integrar la velocidad
+
+    // Modo cartesiano: los ejes de la base, el hombro y el codo mueven la punta en z, y, x
+    private static final int[] COORDENADA_EJE = {2, 1, 0};
+    private Cinematica cinematica = new Cinematica();
+    private final double[] punta = new double[3]; // Posicion continua de la punta que se integra
+    private final double[] destinoPunta = new double[3];
+    private final double[] velocidadPunta = new double[3]; // Fraccion de la velocidad por coordenada
+    private final double[] solucion = new double[3]; // Angulos de la cinematica inversa
+    private boolean puntaActiva = false; // La punta viene de un movimiento cartesiano en curso
+
+    // Configuraciones que chocan con la mesa o la base (ver MapaSeguridad); null no restringe
+    private MapaSeguridad mapaSeguridad;
+
+    // Comandos relativos de cada servo y los grados que mueve cada uno
+    private static final char[] SUBIR = {'k', 'i', 'o', 'w'};
+    private static final char[] BAJAR = {'j', 'm', 'p', 'q'};
+    private static final int[] PASOS = {PASO_SERVO, PASO_SERVO, PASO_SERVO, PASO_PINZA};
+
+    // Tabla de asignaciones del mando (ver MapeoControles)
+    private MapeoControles mapeo = MapeoControles.porDefecto();
+    private final float[] inclinaciones = new float[4]; // Inclinacion de los sticks por servo, ya con signo
+
+    // Escala de velocidad (D-Pad) y paro de emergencia
+    public static final double[] ESCALAS = {0.25, 0.5, 1.0, 1.5, 2.0};
+    private int escala = 2; // Indice en ESCALAS
+    private boolean paro = false;
+
+    // Trayectorias planeadas (centrar, poses y movimientos por programa, ver Trayectoria).
+    // Los limites son los que toleran los servos; la escala de velocidad solo los reduce.
+    public static final double[] CENTRO = {90, 90, 90, 90};
+    public static final double[] VELOCIDADES_SERVOS = {180, 180, 180, 240}; // Grados por segundo
+    public static final double[] ACELERACIONES_SERVOS = {720, 720, 720, 1200}; // Grados por segundo al cuadrado
+    private Trayectoria.Perfil perfil = Trayectoria.Perfil.CURVA_S;
+    private Trayectoria trayectoria; // En curso, null si no hay
+    private long inicioTrayectoria; // nanoTime en que empezo
+    private final double[] muestra = new double[4]; // Posiciones de la trayectoria en este ciclo
+    private volatile double progresoTrayectoria = 1; // 0 a 1, lo lee la vista
+
+    // Aviso de las acciones del mapeo que le interesan a la vista (centrar, paro, poses...)
+    public interface OyenteAcciones {
+        void alEjecutar(MapeoControles.Accion accion);
+    }
+    private volatile OyenteAcciones oyenteAcciones;
+
+    // Estado publicado del brazo (lo que realmente se mando), lo leen la vista y el envio
+    private final ModeloBrazo modelo;
+
+    // Histogramas de latencia de la ruta control -> Arduino
+    private final MedidorLatencia medidor = new MedidorLatencia();
 
     // Constructor
     public ControlArduino() {
-        this.controlXbox = new ControlXbox();
-        this.arduino = new PuertoSerial();
-        this.estadoAnterior = null;
+        this(new ControlXbox(), new PuertoSerial());
+    }
+
+    // Constructor con el control y el puerto ya creados (permite usar otros transportes)
+    public ControlArduino(ControlXbox controlXbox, PuertoSerial arduino) {
+        this(controlXbox, arduino, new ModeloBrazo());
+    }
+
+    // Constructor que publica en un modelo ya creado (por ejemplo el que dibuja la vista)
+    public ControlArduino(ControlXbox controlXbox, PuertoSerial arduino, ModeloBrazo modelo) {
+        this.controlXbox = controlXbox;
+        this.arduino = arduino;
+        this.modelo = modelo;
+        this.arduino.setMedidor(this.medidor);
+        this.modelo.publicar(consignas, motorPasos);
+    }
+
+    public ModeloBrazo getModelo() {
+        return this.modelo;
+    }
+
+    public MedidorLatencia getMedidor() {
+        return this.medidor;
     }
 
     // Función para enviar datos al Arduino a través del control Xbox
-    public void mandarDatos() {
-        this.controlXbox.actualizarEstado();
-        ControllerState estadoActual = this.controlXbox.getState();
+    public synchronized void mandarDatos() {
+        mandarDatos(this.controlXbox.actualizarEstado());
+    }
+
+    // Igual, pero con la foto del mando que ya se tomo en este ciclo (no vuelve a leer SDL)
+    public synchronized void mandarDatos(EstadoMando estadoActual) {
+        long inicio = estadoActual.getMarca();
+        medidor.get(MedidorLatencia.Etapa.LECTURA_CONTROL).registrar(estadoActual.getDuracionLectura());
 
         // --- VALIDACIONES INICIALES ---
-        if(estadoActual == null || !this.controlXbox.isConnected()) {
-            System.out.println("El control se ha desconectado.");
+        if(!this.arduino.getisOpen()) {
+            System.out.println("El Arduino no está abierto.");
             return;
         }
 
-        if(!this.arduino.getisOpen()) {
-            System.out.println("El Arduino no está abierto.");
+        if(!estadoActual.isConectado()) {
+            System.out.println("El control se ha desconectado.");
+            avanzarTrayectoria(inicio); // Centrar y las poses terminan aunque se pierda el mando
             return;
         }
 
-        if (estadoAnterior == null) {
-            estadoAnterior = estadoActual;
+        if (!hayAnterior) {
+            estadoAnterior.copiar(estadoActual);
+            hayAnterior = true;
             return;
         }
 
-        // --- LÓGICA DE ENVÍO DE MOTORES A PASO (SIN CAMBIOS) ---
-        processTriggerOnChange("L", "S", estadoAnterior.leftTrigger, estadoActual.leftTrigger);
-        processTriggerOnChange("R", "S", estadoAnterior.rightTrigger, estadoActual.rightTrigger);
+        trama.limpiar();
+        double dt = marcaAnterior == 0 ? 0 : Math.min(DT_MAXIMO, (inicio - marcaAnterior) / 1e9);
+        marcaAnterior = inicio;
+
+        // --- BOTONES: solo los asignados en el mapeo, al presionar ---
+        int[] botones = mapeo.botones;
+        for (int k = 0; k < botones.length; k++) {
+            int b = botones[k];
+            if (estadoActual.boton(b) && !estadoAnterior.boton(b)) ejecutarBoton(b);
+        }
+
+        boolean cambioDirecto = false;
+        if (!paro) {
+            // --- EJES: gatillos por flanco, sticks acumulan la inclinacion de cada servo ---
+            Arrays.fill(inclinaciones, 0f);
+            Arrays.fill(conducidos, false);
+            int[] ejes = mapeo.ejes;
+            for (int k = 0; k < ejes.length; k++) {
+                int e = ejes[k];
+                if (mapeo.accionEje[e] == MapeoControles.Accion.SERVO) {
+                    inclinaciones[mapeo.servoEje[e]] += mapeo.signoEje[e] * estadoActual.eje(e);
+                } else {
+                    processTriggerOnChange(mapeo.presionarEje[e], mapeo.soltarEje[e], estadoAnterior.eje(e), estadoActual.eje(e));
+                }
+            }
+
+            // Los sticks mueven los servos segun el modo elegido, las trayectorias avanzan solas
+            if (modoEjes == ModoEjes.PROPORCIONAL) {
+                cambioDirecto = integrarEjes(dt);
+            } else if (modoEjes == ModoEjes.CARTESIANO) {
+                cambioDirecto = integrarCartesiano(dt);
+            } else {
+                pasosDigitales(inicio);
+            }
+            cambioDirecto |= seguirTrayectoria(inicio);
+        }
+
+        // Todos los comandos del ciclo salen en una sola escritura
+        enviarTrama(inicio, cambioDirecto);
+        medidor.registrarDesde(MedidorLatencia.Etapa.CICLO, inicio);
 
-        // --- ¡NUEVA LÓGICA PARA SERVOS CON JOYSTICKS Y BUMPERS! ---
-        
+        // Las consignas continuas de los servos que nadie conduce siguen a las enviadas
+        for (int s = 0; s < objetivos.length; s++) {
+            if (!conducidos[s]) objetivos[s] = consignas[s];
+        }
+
+        // Al final, actualizamos el estado anterior para el próximo ciclo
+        estadoAnterior.copiar(estadoActual);
+    }
+
+    // Ejecuta la accion asignada a un boton que se acaba de presionar
+    private void ejecutarBoton(int b) {
+        MapeoControles.Accion accion = mapeo.accionBoton[b];
+        if (paro && accion != MapeoControles.Accion.PARO) return; // En paro solo se puede soltar el paro
+        switch (accion) {
+            case PULSO -> {
+                System.out.println("Comando de Botón: " + mapeo.comandoBoton[b]);
+                trama.agregar(mapeo.comandoBoton[b]);
+            }
+            case CENTRAR -> iniciarTrayectoria(CENTRO, System.nanoTime());
+            case PARO -> alternarParo();
+            case POSE -> iniciarPose(mapeo.poseBoton[b]);
+            case VELOCIDAD_MAS -> escala = Math.min(ESCALAS.length - 1, escala + 1);
+            case VELOCIDAD_MENOS -> escala = Math.max(0, escala - 1);
+            default -> { }
+        }
+        OyenteAcciones oyente = oyenteAcciones;
+        if (oyente != null && accion != MapeoControles.Accion.PULSO) oyente.alEjecutar(accion);
+    }
+
+    // Paro de emergencia: detiene el motor a pasos, cancela la trayectoria e ignora el mando
+    // (salvo el mismo boton, que lo suelta) hasta que se vuelva a presionar
+    private void alternarParo() {
+        paro = !paro;
+        if (paro) {
+            trama.limpiar();
+            trama.agregar('S');
+            cancelarTrayectoria();
+            System.out.println("PARO DE EMERGENCIA");
+        } else {
+            System.out.println("Paro de emergencia liberado");
+        }
+    }
+
+    // Lleva el brazo a una pose guardada con una trayectoria sincronizada
+    private void iniciarPose(int[] pose) {
+        double[] destino = new double[pose.length];
+        for (int s = 0; s < pose.length; s++) destino[s] = pose[s];
+        if (!destinoPermitido(destino)) return;
+        iniciarTrayectoria(destino, System.nanoTime());
+    }
+
+    // Planea la trayectoria desde las consignas actuales. La escala de velocidad puede
+    // hacerla mas lenta, pero nunca pasa de los limites de los servos (escalar la velocidad
+    // por k y la aceleracion por k^2 conserva la forma del perfil)
+    private void iniciarTrayectoria(double[] destino, long marca) {
+        double k = Math.min(1.0, ESCALAS[escala]);
+        double[] origen = new double[consignas.length];
+        double[] velocidades = new double[consignas.length];
+        double[] aceleraciones = new double[consignas.length];
+        for (int s = 0; s < consignas.length; s++) {
+            origen[s] = consignas[s];
+            velocidades[s] = VELOCIDADES_SERVOS[s] * k;
+            aceleraciones[s] = ACELERACIONES_SERVOS[s] * k * k;
+        }
+        trayectoria = Trayectoria.planear(origen, destino, velocidades, aceleraciones, perfil);
+        inicioTrayectoria = marca;
+        progresoTrayectoria = 0;
+    }
+
+    private void cancelarTrayectoria() {
+        trayectoria = null;
+        progresoTrayectoria = 1;
+    }
+
+    // Muestrea la trayectoria en curso y acerca cada servo a su posicion planeada. Termina
+    // cuando se cumplio la duracion y las consignas ya llegaron (en ASCII, a menos de un
+    // paso), o un segundo despues si el enlace no alcanzo a seguirla.
+    // Regresa true si cambio alguna consigna absoluta (protocolo binario).
+    private boolean seguirTrayectoria(long marca) {
+        if (trayectoria == null) return false;
+        double t = (marca - inicioTrayectoria) / 1e9;
+        trayectoria.muestrear(t, muestra);
+        boolean cambio = false;
+        boolean llego = true;
+        for (int s = 0; s < muestra.length; s++) {
+            objetivos[s] = muestra[s];
+            cambio |= seguir(s);
+            llego &= Math.abs(trayectoria.getFin(s) - consignas[s]) < Math.max(cuanto, PASOS[s]);
+        }
+        progresoTrayectoria = trayectoria.progreso(t);
+        if (trayectoria.terminada(t) && (llego || t > trayectoria.getDuracion() + 1)) cancelarTrayectoria();
+        return cambio;
+    }
+
+    // Modo digital: un paso fijo al salir de la zona muerta y luego cada PERIODO_REPETICION
+    private void pasosDigitales(long inicio) {
         // Define una "zona muerta" para los joysticks
         final float DEADZONE = 0.25f;
 
-        // --- SERVO 0: Joystick Izquierdo (Eje X) ---
-        if (estadoActual.leftStickX > DEADZONE) {
-            arduino.enviarDatos("k"); // Mover a la derecha
-        } else if (estadoActual.leftStickX < -DEADZONE) {
-            arduino.enviarDatos("j"); // Mover a la izquierda
+        boolean ejesActivos = false;
+        for (int s = 0; s < inclinaciones.length; s++) {
+            ejesActivos |= Math.abs(inclinaciones[s]) > DEADZONE;
         }
+        long periodo = (long) (PERIODO_REPETICION / ESCALAS[escala]);
+        boolean huboPaso = ejesActivos && (!ejesActivosAntes || inicio - siguienteRepeticion >= 0);
+        if(huboPaso) {
+            // Al volver a mover el stick se reinicia la cuenta, si no se conserva la rejilla
+            siguienteRepeticion = ejesActivosAntes && inicio - siguienteRepeticion < periodo
+                    ? siguienteRepeticion + periodo : inicio + periodo;
+        }
+        ejesActivosAntes = ejesActivos;
+        if(!huboPaso) return;
 
-        // --- SERVO 1: Joystick Izquierdo (Eje Y) ---
-        // Nota: En jamepad, el eje Y es negativo hacia arriba.
-        if (estadoActual.leftStickY < -DEADZONE) {
-            arduino.enviarDatos("i"); // Mover hacia arriba
-        } else if (estadoActual.leftStickY > DEADZONE) {
-            arduino.enviarDatos("m"); // Mover hacia abajo
+        for (int s = 0; s < inclinaciones.length; s++) {
+            if (inclinaciones[s] > DEADZONE) {
+                cancelarTrayectoria(); // El stick manda sobre la trayectoria
+                trama.agregar(SUBIR[s]);
+            } else if (inclinaciones[s] < -DEADZONE) {
+                cancelarTrayectoria();
+                trama.agregar(BAJAR[s]);
+            }
         }
+    }
 
-        // --- SERVO 2: Joystick Derecho (Eje Y) ---
-        // Nota: En jamepad, el eje Y es negativo hacia arriba.
-        if (estadoActual.rightStickY < -DEADZONE) {
-            arduino.enviarDatos("o"); // Mover hacia arriba
-        } else if (estadoActual.rightStickY > DEADZONE) {
-            arduino.enviarDatos("p"); // Mover hacia abajo
+    // Solo para mediciones (bench/BenchControl): la siguiente foto con el stick inclinado cuenta
+    // como recien movido y da un paso, asi el ciclo medido arma y manda comandos en lugar de
+    // esperar la siguiente repeticion
+    synchronized void reiniciarRepeticion() {
+        ejesActivosAntes = false;
+    }
+
+    // Modo proporcional: la inclinacion (fuera de la zona muerta) es velocidad angular y la
+    // consigna se integra con el tiempo real entre fotos. Solo se manda cuando se movio al
+    // menos un cuanto y nunca pasa de los limites, asi que sosteniendo una pose no hay trafico.
+    // Regresa true si cambio alguna consigna absoluta (protocolo binario).
+    private boolean integrarEjes(double dt) {
+        boolean cambio = false;
+        for (int s = 0; s < inclinaciones.length; s++) {
+            cambio |= integrarServo(s, dt);
         }
+        return cambio;
+    }
 
-        // --- SERVO 3: Botones LB y RB ---
-        // Usamos el método processButtonOnChange porque solo queremos un pulso al presionar.
-        processButtonOnChange("q", estadoAnterior.lb, estadoActual.lb); // Mover con LB
-        processButtonOnChange("w", estadoAnterior.rb, estadoActual.rb); // Mover con RB
-        
-        // Al final, actualizamos el estado anterior para el próximo ciclo
-        estadoAnterior = estadoActual;
+    private boolean integrarServo(int s, double dt) {
+        double fraccion = fraccionEje(inclinaciones[s]);
+        if (fraccion == 0 || dt <= 0) return false;
+        cancelarTrayectoria(); // El stick manda sobre la trayectoria
+        objetivos[s] = Math.max(0, Math.min(180, objetivos[s] + fraccion * VELOCIDAD_MAXIMA * ESCALAS[escala] * dt));
+        return seguir(s);
     }
 
-    // Método auxiliar para botones (envía solo al presionar)
-    private void processButtonOnChange(String comando, boolean estabaPresionado, boolean estaPresionado) {
-        if (!estabaPresionado && estaPresionado) { // Si cambió de NO presionado a SÍ presionado
-            System.out.println("Comando de Botón: " + comando);
-            arduino.enviarDatos(comando);
+    // Inclinacion fuera de la zona muerta, reescalada de 0 a 1 y con signo
+    private static double fraccionEje(float inclinacion) {
+        float magnitud = Math.abs(inclinacion);
+        if (magnitud <= ZONA_MUERTA_PROPORCIONAL) return 0;
+        return Math.signum(inclinacion) * (Math.min(1f, magnitud) - ZONA_MUERTA_PROPORCIONAL) / (1 - ZONA_MUERTA_PROPORCIONAL);
+    }
+
+    // Modo cartesiano: los ejes de la base, el hombro y el codo dan la velocidad de la punta
+    // en z (lado), y (altura) y x (frente). La punta se integra en el espacio y en cada ciclo
+    // se resuelve la cinematica inversa; los tres servos siguen la solucion. Si el paso saca
+    // la punta del alcance se intenta coordenada por coordenada, asi la punta se desliza por
+    // el borde en vez de atorarse. La pinza sigue como en el modo proporcional.
+    private boolean integrarCartesiano(double dt) {
+        boolean mueve = false;
+        for (int s = 0; s < COORDENADA_EJE.length; s++) {
+            velocidadPunta[COORDENADA_EJE[s]] = fraccionEje(inclinaciones[s]);
+            mueve |= velocidadPunta[COORDENADA_EJE[s]] != 0;
+        }
+        boolean cambio = false;
+        if (mueve && dt > 0) {
+            cancelarTrayectoria(); // El stick manda sobre la trayectoria
+            if (!puntaActiva) { // Parte de donde esta el brazo (pudo moverlo una pose o centrar)
+                cinematica.directa(objetivos[0], objetivos[1], objetivos[2], punta);
+                puntaActiva = true;
+            }
+            double paso = VELOCIDAD_CARTESIANA * ESCALAS[escala] * dt;
+            for (int k = 0; k < 3; k++) destinoPunta[k] = punta[k] + velocidadPunta[k] * paso;
+            if (!moverPunta()) {
+                for (int k = 0; k < 3; k++) {
+                    if (velocidadPunta[k] == 0) continue;
+                    System.arraycopy(punta, 0, destinoPunta, 0, 3);
+                    destinoPunta[k] += velocidadPunta[k] * paso;
+                    moverPunta();
+                }
+            }
+            for (int s = 0; s < COORDENADA_EJE.length; s++) cambio |= seguir(s);
+        } else {
+            puntaActiva = false;
         }
+        return cambio | integrarServo(3, dt);
     }
-    
+
+    // Lleva la punta a destinoPunta si la cinematica inversa tiene una solucion sin choques.
+    // Con mapa, un destino fuera del espacio alcanzable se descarta antes de resolverla
+    private boolean moverPunta() {
+        if (mapaSeguridad != null && !mapaSeguridad.alcanzable(destinoPunta[0], destinoPunta[1], destinoPunta[2])) return false;
+        if (!cinematica.inversa(destinoPunta[0], destinoPunta[1], destinoPunta[2], objetivos, solucion, mapaSeguridad)) return false;
+        System.arraycopy(solucion, 0, objetivos, 0, 3);
+        System.arraycopy(destinoPunta, 0, punta, 0, 3);
+        return true;
+    }
+
+    // Acerca la consigna enviada a la consigna continua del servo
+    private boolean seguir(int servo) {
+        conducidos[servo] = true;
+        if (arduino.getProtocolo() == PuertoSerial.Protocolo.BINARIO) {
+            int nuevo = (int) Math.round(objetivos[servo]);
+            if (Math.abs(nuevo - consignas[servo]) < cuanto) return false;
+            if (!permitida(servo, nuevo)) {
+                objetivos[servo] = consignas[servo]; // Se queda en el borde en vez de acumular
+                return false;
+            }
+            consignas[servo] = nuevo;
+            return true;
+        }
+        // En ASCII solo hay pasos relativos fijos: se manda cuantos caben (aplicarTrama
+        // descarta los que llevarian a un choque)
+        int pasos = (int) ((objetivos[servo] - consignas[servo]) / PASOS[servo]);
+        pasos = Math.max(-MAX_PASOS_CICLO, Math.min(MAX_PASOS_CICLO, pasos));
+        for (int i = 0; i < Math.abs(pasos); i++) {
+            trama.agregar(pasos > 0 ? SUBIR[servo] : BAJAR[servo]);
+        }
+        return false;
+    }
+
+    // Lleva los servos al centro con una trayectoria planeada, en cualquiera de los dos
+    // protocolos. Regresa false si no se pudo (puerto cerrado o paro de emergencia)
+    public synchronized boolean centrar() {
+        return moverA(new int[] {90, 90, 90, 90});
+    }
+
+    // Movimiento por programa: lleva todos los servos a los angulos dados, llegando juntos
+    // y a la mayor velocidad que toleran. La trayectoria avanza en cada ciclo de mandarDatos
+    public synchronized boolean moverA(int[] angulos) {
+        if (angulos.length != consignas.length) {
+            throw new IllegalArgumentException("Se esperaban " + consignas.length + " angulos: " + angulos.length);
+        }
+        if (!this.arduino.getisOpen() || paro) return false;
+        double[] destino = new double[angulos.length];
+        for (int s = 0; s < angulos.length; s++) {
+            if (angulos[s] < 0 || angulos[s] > 180) {
+                throw new IllegalArgumentException("Angulo fuera de 0-180 en el servo " + s + ": " + angulos[s]);
+            }
+            destino[s] = angulos[s];
+        }
+        if (!destinoPermitido(destino)) return false;
+        iniciarTrayectoria(destino, System.nanoTime());
+        return true;
+    }
+
+    // Reproduccion de una grabacion: lleva cada servo a su angulo y el motor a pasos a su
+    // estado, y lo manda en seguida (consignas absolutas en binario, pasos relativos en ASCII).
+    // Regresa false si no se pudo (puerto cerrado o paro de emergencia)
+    public synchronized boolean aplicarConsignas(int[] angulos, byte pasos) {
+        if (!this.arduino.getisOpen() || paro) return false;
+        cancelarTrayectoria();
+        trama.limpiar();
+        boolean cambio = false;
+        for (int s = 0; s < objetivos.length; s++) {
+            objetivos[s] = Math.max(0, Math.min(180, angulos[s]));
+            cambio |= seguir(s);
+        }
+        if (pasos != motorPasos) {
+            trama.agregar(pasos == ProtocoloBinario.PASOS_IZQUIERDA ? 'L'
+                    : pasos == ProtocoloBinario.PASOS_DERECHA ? 'R' : 'S');
+        }
+        enviarTrama(System.nanoTime(), cambio);
+        return true;
+    }
+
+    // Avanza la trayectoria en curso sin leer el mando (por ejemplo si se desconecto)
+    public synchronized void avanzarTrayectoria(long marca) {
+        if (trayectoria == null || !this.arduino.getisOpen()) return;
+        trama.limpiar();
+        enviarTrama(marca, seguirTrayectoria(marca));
+        for (int s = 0; s < objetivos.length; s++) objetivos[s] = consignas[s];
+    }
+
+    public synchronized boolean hayTrayectoria() {
+        return trayectoria != null;
+    }
+
+    // Fraccion planeada de la trayectoria en curso (0 a 1; 1 si no hay ninguna)
+    public double getProgresoTrayectoria() {
+        return progresoTrayectoria;
+    }
+
+    public synchronized void setPerfilTrayectoria(Trayectoria.Perfil perfil) {
+        this.perfil = perfil;
+    }
+
+    public synchronized Trayectoria.Perfil getPerfilTrayectoria() {
+        return perfil;
+    }
+
+    // Cambia el modo de los sticks; las consignas continuas parten de las actuales
+    public synchronized void setModoEjes(ModoEjes modo) {
+        for (int s = 0; s < objetivos.length; s++) objetivos[s] = consignas[s];
+        marcaAnterior = 0;
+        ejesActivosAntes = false;
+        puntaActiva = false;
+        this.modoEjes = modo;
+    }
+
+    public synchronized ModoEjes getModoEjes() {
+        return modoEjes;
+    }
+
+    // Largos de los eslabones para el modo cartesiano
+    // (quita el mapa de seguridad si es de otros largos)
+    public synchronized void setCinematica(Cinematica cinematica) {
+        this.cinematica = cinematica;
+        if (mapaSeguridad != null && !mapaSeguridad.esDe(cinematica)) {
+            System.out.println("El mapa de seguridad es de otros eslabones, se deja de usar");
+            mapaSeguridad = null;
+        }
+        puntaActiva = false;
+    }
+
+    public synchronized Cinematica getCinematica() {
+        return cinematica;
+    }
+
+    // Mapa de configuraciones prohibidas; toma tambien su cinematica. null quita la restriccion
+    public synchronized void setMapaSeguridad(MapaSeguridad mapa) {
+        this.mapaSeguridad = mapa;
+        if (mapa != null) this.cinematica = mapa.getCinematica();
+        puntaActiva = false;
+        avisarPosesProhibidas();
+    }
+
+    public synchronized MapaSeguridad getMapaSeguridad() {
+        return mapaSeguridad;
+    }
+
+    // Posicion de la punta segun las consignas enviadas, en unidades de los eslabones
+    public synchronized void getPunta(double[] destino) {
+        cinematica.directa(consignas[0], consignas[1], consignas[2], destino);
+    }
+
+    // Cambia la tabla de asignaciones del mando
+    public synchronized void setMapeo(MapeoControles mapeo) {
+        this.mapeo = mapeo;
+        avisarPosesProhibidas();
+    }
+
+    // Avisa de los botones con una pose que el mapa de seguridad siempre va a rechazar
+    private void avisarPosesProhibidas() {
+        if (mapaSeguridad == null) return;
+        for (int b : mapeo.botones) {
+            int[] pose = mapeo.poseBoton[b];
+            if (mapeo.accionBoton[b] != MapeoControles.Accion.POSE || mapaSeguridad.permitida(pose[1], pose[2])) continue;
+            System.out.println("La pose del boton " + ControlXbox.Boton.values()[b] + " choca con la mesa o la base y se rechazara: "
+                    + Arrays.toString(pose));
+        }
+    }
+
+    public synchronized MapeoControles getMapeo() {
+        return mapeo;
+    }
+
+    public void setOyenteAcciones(OyenteAcciones oyente) {
+        this.oyenteAcciones = oyente;
+    }
+
+    public synchronized boolean isParo() {
+        return paro;
+    }
+
+    public synchronized double getEscalaVelocidad() {
+        return ESCALAS[escala];
+    }
+
+    // Grados minimos de cambio para mandar una consigna en modo proporcional (protocolo
+    // binario; en ASCII el cuanto es siempre PASO_SERVO)
+    public synchronized void setCuanto(double grados) {
+        if (grados <= 0) {
+            throw new IllegalArgumentException("El cuanto debe ser positivo: " + grados);
+        }
+        this.cuanto = grados;
+    }
+
+    // Activa o desactiva el modo confiable (ventana deslizante con confirmaciones)
+    public void setModoConfiable(boolean activo) {
+        this.arduino.setModoConfiable(activo);
+    }
+
+    // Devuelve la consigna absoluta que se lleva para cada servo
+    public synchronized int getConsigna(int servo) {
+        return consignas[servo];
+    }
+
+    // Envía la trama del ciclo según el protocolo acordado con el Arduino.
+    // consignasCambiaron indica que el modo proporcional ya movio alguna consigna absoluta
+    private void enviarTrama(long marcaEntrada, boolean consignasCambiaron) {
+        if (trama.estaVacia() && !consignasCambiaron) return;
+        if (arduino.getProtocolo() == PuertoSerial.Protocolo.BINARIO) {
+            if (aplicarTrama() | consignasCambiaron) {
+                // La trama sale de la foto publicada, la misma que dibuja la vista
+                EstadoBrazo estado = modelo.publicar(consignas, motorPasos);
+                secuencia = (secuencia + 1) & 0xFF;
+                arduino.enviarTrama(ProtocoloBinario.codificar(secuencia, estado), marcaEntrada);
+            }
+        } else if (!trama.estaVacia()) {
+            // Se llevan las consignas aunque el Arduino use comandos relativos
+            if (aplicarTrama()) modelo.publicar(consignas, motorPasos);
+            arduino.enviarBytes(trama.construir(), marcaEntrada);
+        }
+    }
+
+    // Convierte los comandos relativos de la trama en consignas absolutas
+    // Regresa true si alguna consigna cambió
+    // Los pasos que llevarian a un choque se quitan de la trama, asi tampoco salen en ASCII
+    private boolean aplicarTrama() {
+        boolean cambio = false;
+        for (int i = 0; i < trama.getTotal(); i++) {
+            char c = trama.getComando(i);
+            if (!pasoPermitido(c)) {
+                trama.quitar(i--);
+                continue;
+            }
+            switch (c) {
+                case 'k' -> cambio |= mover(0, PASO_SERVO);
+                case 'j' -> cambio |= mover(0, -PASO_SERVO);
+                case 'i' -> cambio |= mover(1, PASO_SERVO);
+                case 'm' -> cambio |= mover(1, -PASO_SERVO);
+                case 'o' -> cambio |= mover(2, PASO_SERVO);
+                case 'p' -> cambio |= mover(2, -PASO_SERVO);
+                case 'w' -> cambio |= mover(3, PASO_PINZA);
+                case 'q' -> cambio |= mover(3, -PASO_PINZA);
+                case 'c' -> {
+                    for (int s = 0; s < 4; s++) cambio |= mover(s, 90 - consignas[s]);
+                    for (int s = 0; s < objetivos.length; s++) objetivos[s] = 90;
+                }
+                default -> {
+                    byte nuevo = switch (c) {
+                        case 'L' -> ProtocoloBinario.PASOS_IZQUIERDA;
+                        case 'R' -> ProtocoloBinario.PASOS_DERECHA;
+                        default -> ProtocoloBinario.PASOS_DETENIDO;
+                    };
+                    cambio |= nuevo != motorPasos;
+                    motorPasos = nuevo;
+                }
+            }
+        }
+        return cambio;
+    }
+
+    // Revisa en el mapa los pasos relativos del hombro y el codo (los demas no chocan)
+    private boolean pasoPermitido(char c) {
+        return switch (c) {
+            case 'i' -> permitida(1, consignas[1] + PASO_SERVO);
+            case 'm' -> permitida(1, consignas[1] - PASO_SERVO);
+            case 'o' -> permitida(2, consignas[2] + PASO_SERVO);
+            case 'p' -> permitida(2, consignas[2] - PASO_SERVO);
+            default -> true;
+        };
+    }
+
+    // True si llevar el servo al angulo no deja al brazo en una configuracion prohibida.
+    // Solo cuentan el hombro y el codo (ver MapaSeguridad). Si el brazo ya esta en una
+    // prohibida (por ejemplo asi se encendio) se deja mover para que pueda salir
+    private boolean permitida(int servo, double angulo) {
+        if (mapaSeguridad == null || (servo != 1 && servo != 2)) return true;
+        if (!mapaSeguridad.permitida(consignas[1], consignas[2])) return true;
+        return mapaSeguridad.permitida(servo == 1 ? angulo : consignas[1], servo == 2 ? angulo : consignas[2]);
+    }
+
+    // Rechaza (con aviso) un destino de trayectoria que choca
+    private boolean destinoPermitido(double[] destino) {
+        if (mapaSeguridad == null || mapaSeguridad.permitida(destino[1], destino[2])) return true;
+        System.out.println("Pose rechazada, choca con la mesa o la base: hombro " + destino[1] + ", codo " + destino[2]);
+        return false;
+    }
+
+    private boolean mover(int servo, int delta) {
+        int nuevo = Math.max(0, Math.min(180, consignas[servo] + delta));
+        boolean cambio = nuevo != consignas[servo];
+        consignas[servo] = nuevo;
+        return cambio;
+    }
+
     // Método auxiliar para los gatillos (envía un comando al presionar y otro al soltar)
-    private void processTriggerOnChange(String cmdPresionar, String cmdSoltar, float valorAnterior, float valorActual) {
+    private void processTriggerOnChange(char cmdPresionar, char cmdSoltar, float valorAnterior, float valorActual) {
         boolean estabaPresionado = valorAnterior > 0.1f;
         boolean estaPresionado = valorActual > 0.1f;
 
         if (!estabaPresionado && estaPresionado) { // Se acaba de presionar
             System.out.println("Gatillo presionado: " + cmdPresionar);
-            arduino.enviarDatos(cmdPresionar);
+            trama.agregar(cmdPresionar);
         } else if (estabaPresionado && !estaPresionado) { // Se acaba de soltar
             System.out.println("Gatillo soltado: " + cmdPresionar);
-            arduino.enviarDatos(cmdSoltar);
+            trama.agregar(cmdSoltar);
         }
     }
 }
\ No newline at end of file
@@ -1,11 +1,18 @@
 
 import com.studiohartman.jamepad.ControllerManager; // Utilizado para gestionar los controladores
 import com.studiohartman.jamepad.ControllerState; // Utilizado para obtener información del controlador
+import java.util.concurrent.atomic.AtomicInteger; // Cuenta de quienes tienen SDL iniciado
 
 public class ControlXbox {
     private ControllerManager controllerManager; // Controlador al que esta conectado el control Xbox
-    private ControllerState state; // Estado actual del controlador
+    private final EstadoMando estado = new EstadoMando(); // Foto del ciclo actual, se reutiliza
     private int selectedController; // Índice del controlador seleccionado
+    private boolean compartido = false; // El ControllerManager es de un ConcentradorMandos
+    private boolean iniciaSDL = false; // Este mando inicio SDL y debe soltarlo en shutdown
+
+    // SDL es uno solo por proceso: quitSDLGamepad lo cierra para todos. Se cuenta quien lo usa
+    // (la sesion de Jugar, Configuracion, un ConcentradorMandos) y solo el ultimo lo cierra
+    private static final AtomicInteger usosSDL = new AtomicInteger();
 
     public enum Boton { // Enumeración de los botones disponibles
         A, B, X, Y, START, BACK, LB, RB,
@@ -13,13 +20,37 @@ public class ControlXbox {
         LEFT_STICK_CLICK, RIGHT_STICK_CLICK
     }
 
+    public enum Eje { // Enumeración de los ejes analógicos
+        LEFT_X, LEFT_Y, RIGHT_X, RIGHT_Y,
+        LEFT_TRIGGER, RIGHT_TRIGGER
+    }
+
     // Constructor
     public ControlXbox() {
-        controllerManager = new ControllerManager();
+        this(new ControllerManager());
         controllerManager.initSDLGamepad();
+        tomarSDL();
+        iniciaSDL = true;
+    }
+
+    // Constructor con un ControllerManager ya creado (pruebas y mediciones sin SDL)
+    protected ControlXbox(ControllerManager controllerManager) {
+        this.controllerManager = controllerManager;
         selectedController = -1;
     }
 
+    // Constructor para un mando de un ConcentradorMandos: usa su ControllerManager (una sola
+    // instancia de SDL para todos los mandos) y no lo cierra en shutdown
+    ControlXbox(ControllerManager manager, int indice) {
+        this(manager);
+        this.selectedController = indice;
+        this.compartido = true;
+    }
+
+    public int getIndice() {
+        return selectedController;
+    }
+
     // Lista los controles conectados
     public void listarControles() {
         int count = controllerManager.getNumControllers();
@@ -31,6 +62,27 @@ public class ControlXbox {
         }
     }
 
+    public int getNumControles() {
+        return controllerManager.getNumControllers();
+    }
+
+    // Nombre que reporta SDL para el control del indice, o null si no esta conectado
+    public String getNombre(int index) {
+        if(index < 0 || index >= controllerManager.getNumControllers()) return null;
+        ControllerState tempState = controllerManager.getState(index);
+        return tempState.isConnected ? tempState.controllerType : null;
+    }
+
+    // Indice del control conectado con ese nombre (el de preferencia si coincide), o -1
+    public int buscarControl(String nombre, int preferido) {
+        if(nombre == null) return -1;
+        if(nombre.equals(getNombre(preferido))) return preferido;
+        for(int i = 0; i < controllerManager.getNumControllers(); i++) {
+            if(nombre.equals(getNombre(i))) return i;
+        }
+        return -1;
+    }
+
     // Seleccionar control por índice
     public boolean seleccionarControlPorLista(int index) {
         if(index >= 0 && index < controllerManager.getNumControllers()) {
@@ -45,13 +97,12 @@ public class ControlXbox {
         return false;
     }
 
-    // Verifica si el control seleccionado está conectado
+    // Verifica si el control estaba conectado en la ultima lectura (no vuelve a leer SDL)
     public boolean isConnected() {
-        actualizarEstado();
-        return state != null && state.isConnected;
+        return estado.isConectado();
     }
 
-    // Devuelve el estado del control seleccionado
+    // Devuelve el estado del control seleccionado leyendo SDL directamente
     public ControllerState getState() {
         if(selectedController < 0 || selectedController >= controllerManager.getNumControllers()) {
             System.out.println("Control no seleccionado o índice fuera de rango.");
@@ -60,76 +111,95 @@ public class ControlXbox {
         return controllerManager.getState(selectedController);
     }
 
-    // Actualiza el boton presionado
-    public void actualizarEstado() {
-        this.state = getState();
+    // Lee SDL una sola vez y deja la foto del ciclo, que comparten todos los consumidores
+    public EstadoMando actualizarEstado() {
+        long inicio = System.nanoTime();
+        leerEstado(estado);
+        estado.sellar(inicio, System.nanoTime() - inicio);
+        return estado;
+    }
+
+    // Devuelve la foto de la ultima lectura
+    public EstadoMando getEstado() {
+        return estado;
+    }
+
+    // Llena la foto con el estado actual del control (se sobreescribe para usar otras fuentes)
+    protected void leerEstado(EstadoMando destino) {
+        if(selectedController < 0 || selectedController >= controllerManager.getNumControllers()) {
+            destino.limpiar();
+            return;
+        }
+        destino.copiar(controllerManager.getState(selectedController));
     }
 
     // Imprime por consola los botones o ejes que están activos
     public void imprimirEstado() {
-        actualizarEstado();
-        if(state == null || !state.isConnected) {
+        EstadoMando state = actualizarEstado();
+        if(!state.isConectado()) {
             System.out.println("Control no conectado.");
             return;
         }
 
         // Botones
-        if(state.a) System.out.println("Botón A presionado");
-        if(state.b) System.out.println("Botón B presionado");
-        if(state.x) System.out.println("Botón X presionado");
-        if(state.y) System.out.println("Botón Y presionado");
-        if(state.start) System.out.println("Botón Start presionado");
-        if(state.back) System.out.println("Botón Back presionado");
-        if(state.lb) System.out.println("Botón LB presionado");
-        if(state.rb) System.out.println("Botón RB presionado");
-        if(state.leftStickClick) System.out.println("Click joystick izquierdo");
-        if(state.rightStickClick) System.out.println("Click joystick derecho");
+        if(state.boton(Boton.A)) System.out.println("Botón A presionado");
+        if(state.boton(Boton.B)) System.out.println("Botón B presionado");
+        if(state.boton(Boton.X)) System.out.println("Botón X presionado");
+        if(state.boton(Boton.Y)) System.out.println("Botón Y presionado");
+        if(state.start()) System.out.println("Botón Start presionado");
+        if(state.boton(Boton.BACK)) System.out.println("Botón Back presionado");
+        if(state.lb()) System.out.println("Botón LB presionado");
+        if(state.rb()) System.out.println("Botón RB presionado");
+        if(state.boton(Boton.LEFT_STICK_CLICK)) System.out.println("Click joystick izquierdo");
+        if(state.boton(Boton.RIGHT_STICK_CLICK)) System.out.println("Click joystick derecho");
 
         // Gatillos
-        if(state.leftTrigger > 0.1f) System.out.println("Gatillo izquierdo: " + state.leftTrigger);
-        if(state.rightTrigger > 0.1f) System.out.println("Gatillo derecho: " + state.rightTrigger);
+        if(state.leftTrigger() > 0.1f) System.out.println("Gatillo izquierdo: " + state.leftTrigger());
+        if(state.rightTrigger() > 0.1f) System.out.println("Gatillo derecho: " + state.rightTrigger());
 
         // Joysticks
-        if(Math.abs(state.leftStickX) > 0.1f || Math.abs(state.leftStickY) > 0.1f) {
-            System.out.println("Joystick izquierdo: X=" + state.leftStickX + ", Y=" + state.leftStickY);
+        if(Math.abs(state.leftStickX()) > 0.1f || Math.abs(state.leftStickY()) > 0.1f) {
+            System.out.println("Joystick izquierdo: X=" + state.leftStickX() + ", Y=" + state.leftStickY());
         }
-        if(Math.abs(state.rightStickX) > 0.1f || Math.abs(state.rightStickY) > 0.1f) {
-            System.out.println("Joystick derecho: X=" + state.rightStickX + ", Y=" + state.rightStickY);
+        if(Math.abs(state.rightStickX()) > 0.1f || Math.abs(state.rightStickY()) > 0.1f) {
+            System.out.println("Joystick derecho: X=" + state.rightStickX() + ", Y=" + state.rightStickY());
         }
 
         // D-pad
-        if(state.dpadUp) System.out.println("D-pad arriba");
-        if(state.dpadDown) System.out.println("D-pad abajo");
-        if(state.dpadLeft) System.out.println("D-pad izquierda");
-        if(state.dpadRight) System.out.println("D-pad derecha");
+        if(state.boton(Boton.DPAD_UP)) System.out.println("D-pad arriba");
+        if(state.boton(Boton.DPAD_DOWN)) System.out.println("D-pad abajo");
+        if(state.boton(Boton.DPAD_LEFT)) System.out.println("D-pad izquierda");
+        if(state.boton(Boton.DPAD_RIGHT)) System.out.println("D-pad derecha");
     }
 
     // Permite consultar si un botón específico está presionado
     public boolean estaPresionado(Boton boton) {
-        if(state == null) return false;
-
-        return switch (boton) {
-            case A -> state.a;
-            case B -> state.b;
-            case X -> state.x;
-            case Y -> state.y;
-            case START -> state.start;
-            case BACK -> state.back;
-            case LB -> state.lb;
-            case RB -> state.rb;
-            case LEFT_STICK_CLICK -> state.leftStickClick;
-            case RIGHT_STICK_CLICK -> state.rightStickClick;
-            case DPAD_UP -> state.dpadUp;
-            case DPAD_DOWN -> state.dpadDown;
-            case DPAD_LEFT -> state.dpadLeft;
-            case DPAD_RIGHT -> state.dpadRight;
-        };
+        return estado.boton(boton);
     }
 
     // Desactiva el controlador
     public void shutdown() {
+        if(compartido) return; // Lo cierra el ConcentradorMandos
+        if(iniciaSDL) {
+            iniciaSDL = false;
+            if(!soltarSDL()) return; // Alguien mas sigue usando SDL
+        }
         controllerManager.quitSDLGamepad();
     }
+
+    // True si alguna sesion tiene SDL iniciado (ver Configuracion)
+    public static boolean isSDLEnUso() {
+        return usosSDL.get() > 0;
+    }
+
+    static void tomarSDL() {
+        usosSDL.incrementAndGet();
+    }
+
+    // Regresa true si era el ultimo uso y hay que cerrar SDL
+    static boolean soltarSDL() {
+        return usosSDL.decrementAndGet() == 0;
+    }
 }
 
 // /\_/\
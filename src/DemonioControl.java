@@ -0,0 +1,394 @@
+import java.io.IOException; // Errores al leer la configuracion o el mapeo
+import java.io.InputStream; // Lectura de los archivos de propiedades
+import java.nio.file.Files; // Utilizado para saber si existen los archivos
+import java.nio.file.Path; // Rutas de los archivos
+import java.util.ArrayList; // Puertos de los brazos
+import java.util.List; // Puertos de los brazos
+import java.util.Properties; // Opciones (clave=valor)
+import java.util.concurrent.CountDownLatch; // Espera hasta que se pida detener
+import java.util.concurrent.TimeUnit; // Unidades de la espera
+import com.fazecast.jSerialComm.SerialPort; // Puertos que encuentra el DescubridorPuertos
+
+// Modo sin ventana: arranca los mandos, los brazos y el ciclo de control (SesionBrazos)
+// directamente, sin cargar Swing ni AWT, para una computadora dedicada a los brazos. Las
+// opciones se leen de un archivo de propiedades (--config, o ~/.brazokraken/demonio.properties
+// si existe) y la linea de comandos tiene prioridad:
+//
+//   java -cp "bin:lib/*" DemonioControl --puerto COM3 --frecuencia 500 --modo proporcional
+//   java -cp "bin:lib/*" DemonioControl --puerto COM3,COM4 --espejo true
+//
+//   puerto        auto | lista de nombres (COM3, ttyACM0, /dev/ttyACM0) o tcp://host:puerto,
+//                 separados por comas, un brazo por puerto                              (auto)
+//   brazos        con puerto=auto, cuantos brazos buscar                                (1)
+//   baudios       velocidad fija; 0 negocia la mas alta (recordada por puerto)         (0)
+//   frecuencia    ciclos de control por segundo                                         (200)
+//   hilos         hilos que reparten los brazos en cada ciclo                           (1)
+//   modo          digital | proporcional | cartesiano                                   (digital)
+//   control       indices de los mandos, uno por brazo y separados por comas     (0, 1, 2...)
+//   espejo        true: todos los brazos siguen al primer mando                          (false)
+//   seguridad     false: no revisar choques con la mesa y la base                        (true)
+//   mapeo         archivo de mapeo; si no, el de siempre (ver MapeoControles)
+//   espera        milisegundos que tarda el Arduino en reiniciar al abrir el puerto      (2000)
+//   estadisticas  segundos entre resumenes en consola, 0 para no imprimir               (10)
+//
+// Grabar y reproducir aplican al primer brazo. Se detiene con Ctrl+C (o la senal de
+// terminar), cerrando los puertos y los mandos.
+public class DemonioControl {
+    public static final Path CONFIGURACION = CarpetaDatos.RUTA.resolve("demonio.properties");
+    private static final String[] CLAVES = {"puerto", "brazos", "baudios", "frecuencia", "hilos", "modo", "control", "espejo",
+            "seguridad", "mapeo", "espera", "estadisticas", "config"};
+
+    private final Properties opciones;
+    private ConcentradorMandos concentrador;
+    private SesionBrazos sesion;
+    private final AmbitoDispositivos ambito = AmbitoDispositivos.global().abrir("Demonio"); // Hilos de los puertos
+    private ControlArduino principal; // Primer brazo, el que graba y reproduce
+    private GrabadorMovimientos grabador;
+    private ReproductorMovimientos reproductor;
+    private final CountDownLatch fin = new CountDownLatch(1);
+
+    // Constructor
+    public DemonioControl(Properties opciones) {
+        this.opciones = opciones;
+    }
+
+    public static void main(String[] args) {
+        Properties opciones;
+        try {
+            opciones = leerOpciones(args);
+        } catch(IllegalArgumentException | IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            imprimirUso();
+            System.exit(2);
+            return;
+        }
+        if(opciones == null) { // Se pidio la ayuda
+            imprimirUso();
+            return;
+        }
+        DemonioControl demonio = new DemonioControl(opciones);
+        Runtime.getRuntime().addShutdownHook(new Thread(demonio::detener, "DemonioControl-cierre"));
+        System.exit(demonio.ejecutar() ? 0 : 1);
+    }
+
+    // Junta el archivo de configuracion y la linea de comandos (esta ultima gana)
+    static Properties leerOpciones(String[] args) throws IOException {
+        Properties lineaComandos = new Properties();
+        for(int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if(arg.equals("--ayuda") || arg.equals("-h") || arg.equals("--help")) return null;
+            if(!arg.startsWith("--")) throw new IllegalArgumentException("Argumento inesperado: " + arg);
+            String clave;
+            String valor;
+            int igual = arg.indexOf('=');
+            if(igual > 0) {
+                clave = arg.substring(2, igual);
+                valor = arg.substring(igual + 1);
+            } else {
+                if(i + 1 >= args.length) throw new IllegalArgumentException("Falta el valor de " + arg);
+                clave = arg.substring(2);
+                valor = args[++i];
+            }
+            lineaComandos.setProperty(validar(clave), valor);
+        }
+
+        Properties opciones = new Properties();
+        String config = lineaComandos.getProperty("config");
+        Path archivo = config != null ? Path.of(config) : CONFIGURACION;
+        if(config != null || Files.exists(archivo)) {
+            try(InputStream in = Files.newInputStream(archivo)) {
+                opciones.load(in);
+            }
+            for(String clave : opciones.stringPropertyNames()) validar(clave);
+        }
+        opciones.putAll(lineaComandos);
+        return opciones;
+    }
+
+    private static String validar(String clave) {
+        for(String c : CLAVES) {
+            if(c.equals(clave)) return clave;
+        }
+        throw new IllegalArgumentException("Opcion desconocida: " + clave);
+    }
+
+    private static void imprimirUso() {
+        System.out.println("Uso: DemonioControl [--puerto auto|COM3,COM4|/dev/ttyACM0|tcp://host:puerto] [--brazos N]");
+        System.out.println("                    [--baudios N] [--frecuencia Hz] [--hilos N] [--modo digital|proporcional|cartesiano]");
+        System.out.println("                    [--control 0,1] [--espejo true|false] [--seguridad true|false]");
+        System.out.println("                    [--mapeo archivo] [--espera ms]");
+        System.out.println("                    [--estadisticas s] [--config archivo]");
+        System.out.println("Las mismas claves (sin --) se pueden poner en " + CONFIGURACION);
+    }
+
+    // Conecta el hardware y corre el ciclo de control hasta que se pida detener
+    public boolean ejecutar() {
+        long arranque = System.nanoTime();
+        double frecuencia = decimal("frecuencia", 200);
+        int segundos = entero("estadisticas", 10);
+        try {
+            MapeoControles mapeo = cargarMapeo();
+            ControlArduino.ModoEjes modo = modo();
+            MapaSeguridad mapaSeguridad = Boolean.parseBoolean(opciones.getProperty("seguridad", "true").trim())
+                    ? MapaSeguridad.cargar(new Cinematica()) : null;
+            List<String> puertos = puertos();
+            int[] mandos = mandos(puertos.size());
+            concentrador = new ConcentradorMandos();
+            System.out.println("Controles conectados: " + concentrador.getTotalConectados());
+            sesion = new SesionBrazos(concentrador, frecuencia, entero("hilos", 1));
+            for(int i = 0; i < puertos.size(); i++) {
+                PuertoSerial arduino = new PuertoSerial();
+                arduino.setAmbito(ambito);
+                if(!conectarArduino(arduino, puertos.get(i))) {
+                    arduino.cerrarPuerto();
+                    cerrar();
+                    return false;
+                }
+                ControlArduino control = sesion.agregarBrazo(arduino, mandos[i]);
+                control.setMapeo(mapeo);
+                control.setModoEjes(modo);
+                control.setMapaSeguridad(mapaSeguridad);
+                if(arduino.getProtocolo() == PuertoSerial.Protocolo.BINARIO) {
+                    control.setModoConfiable(true); // El firmware binario confirma cada trama
+                }
+                control.setOyenteAcciones(accion -> alEjecutarAccion(control, accion));
+                if(principal == null) principal = control;
+                System.out.println("Brazo " + (i + 1) + " en " + arduino.getPortName() + " con el mando " + mandos[i]);
+            }
+        } catch(IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+            cerrar();
+            return false;
+        }
+        sesion.iniciar();
+        System.out.printf("Control listo: %d brazo(s) a %.0f Hz en %.0f ms%n", sesion.getBrazos().size(), frecuencia,
+                (System.nanoTime() - arranque) / 1e6);
+
+        try {
+            while(segundos <= 0 ? !esperarFin(Long.MAX_VALUE) : !esperarFin(segundos * 1000L)) {
+                imprimirEstadisticas();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    private boolean esperarFin(long milisegundos) throws InterruptedException {
+        return fin.await(milisegundos, TimeUnit.MILLISECONDS);
+    }
+
+    // Pide detener (Ctrl+C); cierra todo y libera a ejecutar
+    public void detener() {
+        if(fin.getCount() == 0) return;
+        cerrar();
+        fin.countDown();
+    }
+
+    private void cerrar() {
+        // Primero el ciclo: sus acciones (grabar, reproducir) toman el candado de este objeto
+        if(sesion != null) sesion.detener();
+        synchronized(this) {
+            if(reproductor != null) reproductor.detener();
+            if(grabador != null) grabador.detener();
+        }
+        if(sesion != null) {
+            for(ControlArduino control : sesion.getBrazos()) control.arduino.cerrarPuerto();
+        }
+        ambito.cerrar(); // Lo que haya quedado de una conexion a medias
+        if(concentrador != null) concentrador.cerrar();
+    }
+
+    // Funciones de conexion
+    // Un puerto por brazo; con "auto" se buscan los brazos con el DescubridorPuertos
+    private List<String> puertos() {
+        String valor = opciones.getProperty("puerto", "auto").trim();
+        List<String> puertos = new ArrayList<>();
+        if(!valor.equals("auto")) {
+            for(String p : valor.split(",")) {
+                if(!p.isBlank()) puertos.add(p.trim());
+            }
+            return puertos;
+        }
+        int brazos = entero("brazos", 1);
+        if(brazos < 1) throw new IllegalArgumentException("Se necesita al menos un brazo: " + brazos);
+        DescubridorPuertos descubridor = DescubridorPuertos.getInstancia();
+        descubridor.iniciarVigilancia(ambito);
+        for(SerialPort p : descubridor.buscarTodos()) {
+            if(puertos.size() < brazos) puertos.add(p.getSystemPortName());
+        }
+        if(puertos.size() < brazos) {
+            throw new IllegalArgumentException("Se encontraron " + puertos.size() + " brazo(s) de " + brazos);
+        }
+        return puertos;
+    }
+
+    // Indice del mando de cada brazo: la lista de "control", todos el primero en espejo, o uno por brazo
+    private int[] mandos(int brazos) {
+        int[] mandos = new int[brazos];
+        String lista = opciones.getProperty("control");
+        boolean espejo = Boolean.parseBoolean(opciones.getProperty("espejo", "false").trim());
+        String[] partes = lista == null ? new String[0] : lista.split(",");
+        for(int i = 0; i < brazos; i++) {
+            if(i < partes.length) {
+                mandos[i] = numero("control", partes[i]);
+            } else if(espejo) {
+                mandos[i] = partes.length > 0 ? numero("control", partes[0]) : 0;
+            } else if(partes.length > 0) {
+                throw new IllegalArgumentException("Faltan mandos en control para " + brazos + " brazos: " + lista);
+            } else {
+                mandos[i] = i;
+            }
+        }
+        return mandos;
+    }
+
+    private boolean conectarArduino(PuertoSerial arduino, String puerto) {
+        boolean tcp = puerto.startsWith("tcp://");
+        if(tcp) {
+            String direccion = puerto.substring("tcp://".length());
+            int dosPuntos = direccion.lastIndexOf(':');
+            if(dosPuntos < 0) throw new IllegalArgumentException("Falta el puerto TCP en " + puerto);
+            arduino.setTransport(new TransporteTcp(direccion.substring(0, dosPuntos), Integer.parseInt(direccion.substring(dosPuntos + 1))));
+        } else {
+            arduino.seleccionarPuertoPorNombre(puerto);
+        }
+
+        int baudios = entero("baudios", 0);
+        arduino.configurarPuerto(baudios > 0 ? baudios : 9600);
+        if(!arduino.abrirPuerto()) return false;
+        int espera = arduino.isArduinoListo() ? 0 : entero("espera", tcp ? 0 : 2000);
+        if(espera > 0) {
+            try {
+                Thread.sleep(espera); // El Arduino se reinicia al abrir el puerto
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if(baudios <= 0) arduino.negociarBaudios();
+        arduino.negociarProtocolo();
+        System.out.println("Arduino conectado en " + arduino.getPortName() + " a " + arduino.getBaudios() + " baudios");
+        return true;
+    }
+
+    private MapeoControles cargarMapeo() {
+        String archivo = opciones.getProperty("mapeo");
+        if(archivo == null) return MapeoControles.cargar();
+        try {
+            return MapeoControles.cargar(Path.of(archivo));
+        } catch(IOException e) {
+            throw new IllegalArgumentException("No se pudo leer el mapeo " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    // Acciones del mapeo que en la vista maneja JuegoPanel (se llama en el hilo de control)
+    private void alEjecutarAccion(ControlArduino control, MapeoControles.Accion accion) {
+        switch(accion) {
+            // En paro la reproduccion se detiene sola (ControlArduino rechaza sus consignas)
+            case PARO -> System.out.println(control.isParo() ? "Paro de emergencia activado" : "Paro liberado");
+            case VELOCIDAD_MAS, VELOCIDAD_MENOS -> System.out.println("Velocidad x" + control.getEscalaVelocidad());
+            case GRABAR, REPRODUCIR -> {
+                if(control != principal) {
+                    System.out.println("Grabar y reproducir solo aplican al primer brazo");
+                } else if(accion == MapeoControles.Accion.GRABAR) {
+                    alternarGrabacion();
+                } else {
+                    alternarReproduccion();
+                }
+            }
+            default -> { }
+        }
+    }
+
+    private synchronized void alternarGrabacion() {
+        if(grabador != null) {
+            grabador.detener();
+            System.out.println("Grabacion guardada: " + grabador.getTotal() + " movimientos");
+            grabador = null;
+            return;
+        }
+        try {
+            grabador = new GrabadorMovimientos(principal.getModelo());
+            System.out.println("Grabando movimientos en " + GrabadorMovimientos.ARCHIVO);
+        } catch(IOException e) {
+            System.out.println("No se pudo grabar: " + e.getMessage());
+        }
+    }
+
+    private synchronized void alternarReproduccion() {
+        if(reproductor != null && reproductor.isReproduciendo()) {
+            // Se detiene desde otro hilo: la reproduccion puede estar esperando el candado del control
+            ReproductorMovimientos r = reproductor;
+            reproductor = null;
+            new Thread(r::detener, "DemonioControl-detener").start();
+            System.out.println("Reproduccion detenida");
+            return;
+        }
+        try {
+            reproductor = new ReproductorMovimientos();
+            reproductor.iniciar(principal, principal.getEscalaVelocidad(), true);
+            System.out.println("Reproduciendo " + reproductor.getTotal() + " movimientos");
+        } catch(IOException e) {
+            reproductor = null;
+            System.out.println("No se pudo reproducir: " + e.getMessage());
+        }
+    }
+
+    private void imprimirEstadisticas() {
+        BucleControl bucle = sesion.getBucle();
+        if(bucle == null) return;
+        System.out.println("Ciclos=" + bucle.getCiclos() + " saltados=" + bucle.getSaltados()
+                + " errores=" + (bucle.getErrores() + sesion.getErrores()));
+        System.out.println("  " + bucle.getJitter().resumen());
+        for(ControlArduino control : sesion.getBrazos()) {
+            System.out.println("  " + control.arduino.getPortName() + ": enviados=" + control.arduino.getComandosEnviados()
+                    + " descartados=" + control.arduino.getComandosDescartados());
+            System.out.println("    " + control.getMedidor().get(MedidorLatencia.Etapa.CICLO).resumen());
+        }
+    }
+
+    // Funciones para leer las opciones
+    private int entero(String clave, int porDefecto) {
+        String valor = opciones.getProperty(clave);
+        if(valor == null) return porDefecto;
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Numero invalido en " + clave + ": " + valor);
+        }
+    }
+
+    private static int numero(String clave, String valor) {
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Numero invalido en " + clave + ": " + valor);
+        }
+    }
+
+    private double decimal(String clave, double porDefecto) {
+        String valor = opciones.getProperty(clave);
+        if(valor == null) return porDefecto;
+        try {
+            return Double.parseDouble(valor.trim());
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Numero invalido en " + clave + ": " + valor);
+        }
+    }
+
+    private ControlArduino.ModoEjes modo() {
+        String valor = opciones.getProperty("modo", "digital").trim();
+        try {
+            return ControlArduino.ModoEjes.valueOf(valor.toUpperCase());
+        } catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Modo desconocido: " + valor + " (digital, proporcional o cartesiano)");
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del DemonioControl
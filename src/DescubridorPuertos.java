@@ -0,0 +1,290 @@
+import java.io.IOException; // Errores al leer o escribir la cache
+import java.io.InputStream; // Lectura de la cache
+import java.io.OutputStream; // Escritura de la cache
+import java.nio.charset.StandardCharsets; // Utilizado para el saludo de identificacion
+import java.nio.file.Files; // Utilizado para crear la carpeta y abrir la cache
+import java.nio.file.Path; // Ruta de la cache
+import java.util.ArrayList; // Lista de puertos a sondear
+import java.util.HashSet; // Puertos presentes en cada revision
+import java.util.List; // Resultados del sondeo
+import java.util.Map; // Cache de puertos identificados
+import java.util.Properties; // Formato de la cache en disco
+import java.util.Set; // Identificadores presentes
+import java.util.concurrent.ConcurrentHashMap; // Cache compartida con el hilo vigilante
+import java.util.concurrent.CountDownLatch; // Utilizado para esperar la respuesta del saludo
+import java.util.concurrent.ExecutionException; // Sondeo que fallo
+import java.util.concurrent.ExecutorService; // Sondeo de puertos en paralelo
+import java.util.concurrent.Executors; // Un hilo virtual por sondeo
+import java.util.concurrent.Future; // Resultado de cada sondeo
+import java.util.concurrent.TimeoutException; // Sondeo que no termino a tiempo
+import java.util.concurrent.TimeUnit; // Unidades de los tiempos de espera
+import com.fazecast.jSerialComm.SerialPort; // Utilizado para enumerar y abrir los puertos
+
+// Busca el brazo en todos los puertos a la vez con un saludo corto ("ID" -> "KRAKEN ...")
+// y recuerda el resultado por VID/PID/numero de serie. Un hilo vigila cuando se conectan
+// o desconectan puertos para que la siguiente conexion salga de la cache en milisegundos.
+// La cache de los puertos con numero de serie se guarda en ~/.brazokraken/puertos.properties,
+// asi un programa recien iniciado tampoco sondea. Abrir el puerto para el saludo reinicia el
+// Arduino (DTR), por eso el puerto que respondio se deja abierto ESPERA_ENTREGA milisegundos:
+// si PuertoSerial lo abre en ese tiempo lo recibe tal cual (ver retomar), sin un segundo
+// reinicio ni la espera de arranque.
+public class DescubridorPuertos {
+    public static final String SOLICITUD = "ID"; // Pregunta de identificacion
+    public static final String IDENTIDAD = "KRAKEN"; // Inicio de la respuesta del firmware del brazo
+    public static final int TIEMPO_IDENTIFICACION = 2500; // Milisegundos, cubre el reinicio del Arduino al abrir
+    public static final int INTERVALO_SALUDO = 250; // Milisegundos entre repeticiones del saludo
+    public static final int INTERVALO_VIGILANCIA = 1000; // Milisegundos entre revisiones de puertos
+    public static final int ESPERA_ENTREGA = 5000; // Milisegundos que se guarda abierto un puerto identificado
+    public static final int BAUDIOS_SALUDO = 9600; // Velocidad del saludo (y del puerto que se entrega)
+    public static final Path ARCHIVO = CarpetaDatos.RUTA.resolve("puertos.properties");
+
+    // Palabras de la descripcion que indican una placa (originales y clones CH340/CP210x/FTDI)
+    private static final String[] DESCRIPCIONES = {"arduino", "ch340", "ch341", "wch", "cp210", "ftdi", "usb serial", "usb-serial"};
+    private static final byte[] IDENTIDAD_BYTES = IDENTIDAD.getBytes(StandardCharsets.US_ASCII);
+
+    private static final DescubridorPuertos INSTANCIA = new DescubridorPuertos();
+
+    private final Map<String, String> identificados = new ConcurrentHashMap<>(); // identificador -> nombre del puerto
+    private final Map<String, String> presentes = new ConcurrentHashMap<>(); // identificador -> nombre, ultimo vistazo
+    private final Map<String, TransporteSerial> abiertos = new ConcurrentHashMap<>(); // Puertos recien identificados, aun abiertos
+    // Cada sondeo pasa casi todo el tiempo esperando el saludo, un hilo virtual por puerto basta
+    private final ExecutorService sondeos = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("DescubridorPuertos-sondeo-", 0).factory());
+    private volatile Thread vigilante;
+    private final Set<AmbitoDispositivos> vigilantes = new HashSet<>(); // Ambitos que pidieron la vigilancia
+    private boolean primeraRevision = true; // Solo lo usa el hilo vigilante
+
+    private DescubridorPuertos() {
+        if(!Files.exists(ARCHIVO)) return;
+        Properties valores = new Properties();
+        try(InputStream in = Files.newInputStream(ARCHIVO)) {
+            valores.load(in);
+        } catch(IOException e) {
+            System.out.println("No se pudo leer " + ARCHIVO + ": " + e.getMessage());
+        }
+        for(String id : valores.stringPropertyNames()) identificados.put(id, valores.getProperty(id));
+    }
+
+    public static DescubridorPuertos getInstancia() {
+        return INSTANCIA;
+    }
+
+    // Regresa el puerto del brazo, primero desde la cache y si no sondeando todos los puertos
+    public SerialPort buscarArduino() {
+        SerialPort[] puertos = SerialPort.getCommPorts();
+        for(SerialPort p : puertos) {
+            if(identificados.containsKey(identificador(p))) {
+                return p;
+            }
+        }
+        List<SerialPort> encontrados = sondear(puertos);
+        if(!encontrados.isEmpty()) return encontrados.get(0);
+
+        // Firmware sin saludo: se usa la descripcion del puerto como antes
+        for(SerialPort p : puertos) {
+            if(pareceArduino(p)) return p;
+        }
+        return null;
+    }
+
+    // Regresa todos los puertos que respondieron el saludo (varias placas a la vez)
+    public List<SerialPort> buscarTodos() {
+        return sondear(SerialPort.getCommPorts());
+    }
+
+    // Sondea en paralelo los puertos candidatos y guarda en la cache los que respondieron
+    private List<SerialPort> sondear(SerialPort[] puertos) {
+        List<SerialPort> candidatos = new ArrayList<>();
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        List<SerialPort> encontrados = new ArrayList<>();
+        for(SerialPort p : puertos) {
+            if(abiertos.containsKey(identificador(p))) { // Ya respondio y lo tenemos abierto
+                encontrados.add(p);
+                continue;
+            }
+            if(!esCandidato(p)) continue;
+            candidatos.add(p);
+            resultados.add(sondeos.submit(() -> identificar(p)));
+        }
+        for(int i = 0; i < candidatos.size(); i++) {
+            try {
+                if(resultados.get(i).get(TIEMPO_IDENTIFICACION * 2L, TimeUnit.MILLISECONDS)) {
+                    SerialPort p = candidatos.get(i);
+                    recordar(identificador(p), p.getSystemPortName());
+                    encontrados.add(p);
+                }
+            } catch(InterruptedException e) {
+                // Se cerro el ambito de quien busca (el vigilante, una sesion): se deja de esperar
+                for(int j = i; j < resultados.size(); j++) resultados.get(j).cancel(true);
+                Thread.currentThread().interrupt();
+                break;
+            } catch(TimeoutException | ExecutionException e) {
+                resultados.get(i).cancel(true);
+            }
+        }
+        return encontrados;
+    }
+
+    // Entrega el puerto abierto si se identifico hace menos de ESPERA_ENTREGA; null si no.
+    // Quien lo recibe se hace cargo de cerrarlo
+    public TransporteSerial retomar(String identificador) {
+        return abiertos.remove(identificador);
+    }
+
+    // Guarda el puerto abierto hasta que alguien lo retome o pase ESPERA_ENTREGA
+    private void entregar(String identificador, TransporteSerial transporte) {
+        TransporteSerial anterior = abiertos.put(identificador, transporte);
+        if(anterior != null && anterior != transporte) anterior.cerrar();
+        sondeos.submit(() -> {
+            try {
+                Thread.sleep(ESPERA_ENTREGA);
+            } catch(InterruptedException e) {
+                // Se cierra de todos modos
+            }
+            if(abiertos.remove(identificador, transporte)) transporte.cerrar();
+        });
+    }
+
+    // Agrega el puerto a la cache; si tiene numero de serie tambien al archivo
+    private synchronized void recordar(String identificador, String nombre) {
+        if(nombre.equals(identificados.put(identificador, nombre)) || identificador.equals(nombre)) return;
+        Properties valores = new Properties();
+        identificados.forEach((id, n) -> {
+            if(!id.equals(n)) valores.setProperty(id, n);
+        });
+        try {
+            Files.createDirectories(ARCHIVO.getParent());
+            try(OutputStream out = Files.newOutputStream(ARCHIVO)) {
+                valores.store(out, "Puertos que respondieron el saludo del brazo");
+            }
+        } catch(IOException e) {
+            System.out.println("No se pudo guardar " + ARCHIVO + ": " + e.getMessage());
+        }
+    }
+
+    // Abre el puerto, repite el saludo hasta recibir la identidad o agotar el tiempo.
+    // Si responde, el puerto queda abierto para entregarlo (ver retomar)
+    private boolean identificar(SerialPort puerto) {
+        TransporteSerial transporte = new TransporteSerial(puerto);
+        ReceptorSerial receptor = new ReceptorSerial();
+        CountDownLatch respondio = new CountDownLatch(1);
+        receptor.agregarOyente(new OyenteSerial() {
+            @Override
+            public void alRecibirTexto(byte[] linea, int largo) {
+                if(largo >= IDENTIDAD_BYTES.length && ReceptorSerial.esIgual(linea, IDENTIDAD_BYTES.length, IDENTIDAD_BYTES)) {
+                    respondio.countDown();
+                }
+            }
+        });
+        transporte.configurar(BAUDIOS_SALUDO, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        if(!transporte.abrir(receptor::procesar)) return false;
+        boolean identificado = false;
+        try {
+            byte[] saludo = (SOLICITUD + "\n").getBytes(StandardCharsets.US_ASCII);
+            long limite = System.currentTimeMillis() + TIEMPO_IDENTIFICACION;
+            while(System.currentTimeMillis() < limite) {
+                transporte.getSalida().write(saludo);
+                transporte.getSalida().flush();
+                if(respondio.await(INTERVALO_SALUDO, TimeUnit.MILLISECONDS)) {
+                    identificado = true;
+                    entregar(identificador(puerto), transporte);
+                    return true;
+                }
+            }
+            return false;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch(Exception e) {
+            return false; // Puerto ocupado o desconectado a media prueba
+        } finally {
+            if(!identificado) transporte.cerrar();
+        }
+    }
+
+    // Funciones del hilo vigilante (los puertos serie no avisan cuando se conectan)
+    // Un solo hilo para todos: sigue mientras alguno de los ambitos que lo pidieron este abierto
+    // y se detiene solo cuando se cierra el ultimo (la sesion de Jugar, Configuracion, el demonio)
+    public synchronized void iniciarVigilancia(AmbitoDispositivos ambito) {
+        if(ambito.isCerrado()) return;
+        vigilantes.add(ambito);
+        if(vigilante != null) return;
+        vigilante = AmbitoDispositivos.global().iniciar("DescubridorPuertos-vigilante", this::cicloVigilancia);
+    }
+
+    public synchronized void detenerVigilancia() {
+        vigilantes.clear();
+        if(vigilante == null) return;
+        vigilante.interrupt();
+        vigilante = null;
+    }
+
+    // True mientras quede un ambito abierto que use la vigilancia
+    private synchronized boolean seguirVigilando() {
+        vigilantes.removeIf(AmbitoDispositivos::isCerrado);
+        if(!vigilantes.isEmpty()) return true;
+        if(vigilante == Thread.currentThread()) vigilante = null;
+        return false;
+    }
+
+    private void cicloVigilancia() {
+        while(!Thread.currentThread().isInterrupted() && seguirVigilando()) {
+            revisarCambios();
+            try {
+                Thread.sleep(INTERVALO_VIGILANCIA);
+            } catch(InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void revisarCambios() {
+        SerialPort[] puertos = SerialPort.getCommPorts();
+        Set<String> ahora = new HashSet<>();
+        List<SerialPort> nuevos = new ArrayList<>();
+        for(SerialPort p : puertos) {
+            String id = identificador(p);
+            ahora.add(id);
+            if(presentes.put(id, p.getSystemPortName()) == null) nuevos.add(p);
+        }
+        // Lo que se desconecto sale de la cache, salvo los que tienen numero de serie:
+        // al volver a conectarse son la misma placa
+        presentes.keySet().retainAll(ahora);
+        identificados.entrySet().removeIf(e -> !ahora.contains(e.getKey()) && e.getKey().equals(e.getValue()));
+        // Solo se sondean los puertos recien conectados (nunca uno que ya este en uso),
+        // por eso en la primera revision solo se toma nota de lo que ya estaba
+        if(primeraRevision) {
+            primeraRevision = false;
+        } else if(!nuevos.isEmpty()) {
+            sondear(nuevos.toArray(new SerialPort[0]));
+        }
+    }
+
+    public boolean estaIdentificado(SerialPort puerto) {
+        return identificados.containsKey(identificador(puerto));
+    }
+
+    // Funciones auxiliares
+    private static String identificador(SerialPort puerto) {
+        return TransporteSerial.identificadorDe(puerto);
+    }
+
+    private static boolean pareceArduino(SerialPort puerto) {
+        String descripcion = (puerto.getDescriptivePortName() + " " + puerto.getPortDescription()).toLowerCase();
+        for(String d : DESCRIPCIONES) {
+            if(descripcion.contains(d)) return true;
+        }
+        return false;
+    }
+
+    // Solo se sondean puertos USB o con descripcion conocida, no los puertos serie de la tarjeta madre
+    private static boolean esCandidato(SerialPort puerto) {
+        return puerto.getVendorID() > 0 || pareceArduino(puerto);
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del DescubridorPuertos
@@ -0,0 +1,238 @@
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.image.VolatileImage;
+
+/**
+ * Dibuja el brazo robótico en proyección isométrica a partir de los ángulos de los servos.
+ * Se separa del panel del juego para poder dibujar en cualquier Graphics2D
+ * (por ejemplo una imagen fuera de pantalla para medir el rendimiento).
+ *
+ * Cada instancia reutiliza todo lo que necesita un cuadro: los trazos y colores son
+ * constantes, los senos y cosenos salen de las tablas de Cinematica (los ángulos de los
+ * servos son enteros y la garra se abre la mitad), la proyección escribe en campos en vez
+ * de crear Points, y los degradados de cada segmento se dibujan en coordenadas locales del
+ * segmento, así un mismo GradientPaint por largo en píxeles sirve para cualquier dirección.
+ * En el panel, el fondo y la base se guardan en una VolatileImage y solo se redibujan si
+ * cambia el tamaño o se pierde la imagen.
+ */
+public class DibujoBrazo {
+    private static final double GARRA = 30;
+    private static final int LARGO_MAXIMO = 512; // Píxeles; más largo se dibuja con un degradado nuevo
+
+    private static final BasicStroke TRAZO = new BasicStroke(12, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final Color BASE_CLARO = new Color(200, 200, 210), BASE_OSCURO = new Color(120, 120, 130);
+    private static final Color SEG1_CLARO = new Color(255, 138, 128), SEG1_OSCURO = new Color(244, 67, 54);
+    private static final Color SEG2_CLARO = new Color(165, 214, 167), SEG2_OSCURO = new Color(76, 175, 80);
+    private static final Color PINZA_CLARO = new Color(144, 202, 249), PINZA_OSCURO = new Color(33, 150, 243);
+
+    // Largos de los eslabones
+    private final Cinematica cinematica;
+
+    // Degradados por largo del segmento, creados la primera vez que se usa cada largo
+    private final GradientPaint[] degradadosSeg1 = new GradientPaint[LARGO_MAXIMO + 1];
+    private final GradientPaint[] degradadosSeg2 = new GradientPaint[LARGO_MAXIMO + 1];
+    private final GradientPaint[] degradadosPinza = new GradientPaint[LARGO_MAXIMO + 1];
+
+    // Degradado de la base, se rehace solo si se mueve el centro
+    private GradientPaint degradadoBase;
+    private int baseCx = Integer.MIN_VALUE, baseCy = Integer.MIN_VALUE;
+
+    // Última proyección (evita crear un Point por articulación) y línea de cada segmento
+    private int px, py;
+    private final Line2D.Double linea = new Line2D.Double();
+
+    // Capa fija del panel: fondo y base
+    private VolatileImage capa;
+    private int capaCx, capaCy;
+    private Color capaFondo;
+
+    /**
+     * Dibujo con los largos de eslabón por defecto.
+     */
+    public DibujoBrazo() {
+        this(new Cinematica());
+    }
+
+    /**
+     * @param cinematica Largos de los eslabones del brazo que se dibuja
+     */
+    public DibujoBrazo(Cinematica cinematica) {
+        this.cinematica = cinematica;
+    }
+
+    /**
+     * Dibuja el brazo completo, con la base.
+     *
+     * @param g2      Objeto Graphics2D para dibujar
+     * @param angulos Ángulos de los 4 servos (base, hombro, codo, pinza)
+     * @param cx      Coordenada X del centro de la base
+     * @param cy      Coordenada Y del centro de la base
+     */
+    public void dibujar(Graphics2D g2, int[] angulos, int cx, int cy) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        dibujarBase(g2, cx, cy);
+        dibujarBrazo(g2, angulos, cx, cy);
+    }
+
+    /**
+     * Dibuja el fondo del panel y la base desde la capa guardada, y encima el brazo.
+     * Pinta todo el panel, así que reemplaza a super.paintComponent.
+     *
+     * @param panel   Componente en el que se dibuja (da el tamaño y la configuración gráfica)
+     * @param g2      Objeto Graphics2D del panel
+     * @param angulos Ángulos de los 4 servos
+     * @param cx      Coordenada X del centro de la base
+     * @param cy      Coordenada Y del centro de la base
+     */
+    public void dibujarEnPanel(Component panel, Graphics2D g2, int[] angulos, int cx, int cy) {
+        int ancho = Math.max(1, panel.getWidth()), alto = Math.max(1, panel.getHeight());
+        GraphicsConfiguration gc = panel.getGraphicsConfiguration();
+        if (gc == null) { // Aún no se muestra, se dibuja directo
+            g2.setColor(panel.getBackground());
+            g2.fillRect(0, 0, ancho, alto);
+            dibujar(g2, angulos, cx, cy);
+            return;
+        }
+        // Si la imagen se pierde mientras se copia (cambio de modo, otra pantalla) se rehace
+        do {
+            boolean rehacer = capa == null || capa.getWidth() != ancho || capa.getHeight() != alto
+                    || capaCx != cx || capaCy != cy || !panel.getBackground().equals(capaFondo);
+            if (rehacer) {
+                if (capa != null) capa.flush();
+                capa = gc.createCompatibleVolatileImage(ancho, alto);
+            }
+            int estado = capa.validate(gc);
+            if (estado == VolatileImage.IMAGE_INCOMPATIBLE) {
+                capa.flush();
+                capa = gc.createCompatibleVolatileImage(ancho, alto);
+                rehacer = true;
+            }
+            if (rehacer || estado != VolatileImage.IMAGE_OK) {
+                pintarCapa(panel.getBackground(), cx, cy);
+            }
+            g2.drawImage(capa, 0, 0, null);
+        } while (capa.contentsLost());
+
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        dibujarBrazo(g2, angulos, cx, cy);
+    }
+
+    private void pintarCapa(Color fondo, int cx, int cy) {
+        Graphics2D g = capa.createGraphics();
+        try {
+            g.setColor(fondo);
+            g.fillRect(0, 0, capa.getWidth(), capa.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            dibujarBase(g, cx, cy);
+        } finally {
+            g.dispose();
+        }
+        capaCx = cx;
+        capaCy = cy;
+        capaFondo = fondo;
+    }
+
+    private void dibujarBase(Graphics2D g2, int cx, int cy) {
+        if (cx != baseCx || cy != baseCy) {
+            degradadoBase = new GradientPaint(cx - 60, cy - 20, BASE_CLARO, cx - 60, cy + 20, BASE_OSCURO);
+            baseCx = cx;
+            baseCy = cy;
+        }
+        g2.setPaint(degradadoBase);
+        g2.fillOval(cx - 60, cy - 20, 120, 40);
+    }
+
+    /**
+     * Dibuja los segmentos, la pinza y las articulaciones, sin crear objetos por cuadro.
+     */
+    private void dibujarBrazo(Graphics2D g2, int[] angulos, int cx, int cy) {
+        // Ángulos en medios grados para las tablas
+        int base = 2 * (angulos[0] - 90);
+        int hombro = 2 * (angulos[1] - 90);
+        int hombroTotal = hombro + 2 * (angulos[2] - 90);
+        int garra = angulos[3] - 90; // La mitad del ángulo de la pinza, en medios grados
+        double l1 = cinematica.getL1(), l2 = cinematica.getL2();
+
+        double cosBase = Cinematica.coseno(base), senBase = Cinematica.seno(base);
+        double x1 = l1 * Cinematica.coseno(hombro) * cosBase;
+        double y1 = l1 * Cinematica.seno(hombro);
+        double z1 = l1 * Cinematica.coseno(hombro) * senBase;
+
+        double x2 = x1 + l2 * Cinematica.coseno(hombroTotal) * cosBase;
+        double y2 = y1 + l2 * Cinematica.seno(hombroTotal);
+        double z2 = z1 + l2 * Cinematica.coseno(hombroTotal) * senBase;
+
+        proyectar(0, 0, 0, cx, cy);
+        int p0x = px, p0y = py;
+        proyectar(x1, y1, z1, cx, cy);
+        int p1x = px, p1y = py;
+        proyectar(x2, y2, z2, cx, cy);
+        int p2x = px, p2y = py;
+
+        int abre = hombroTotal + garra, cierra = hombroTotal - garra;
+        proyectar(x2 + GARRA * Cinematica.coseno(abre) * cosBase, y2 + GARRA * Cinematica.seno(abre),
+                z2 + GARRA * Cinematica.coseno(abre) * senBase, cx, cy);
+        int g1x = px, g1y = py;
+        proyectar(x2 + GARRA * Cinematica.coseno(cierra) * cosBase, y2 + GARRA * Cinematica.seno(cierra),
+                z2 + GARRA * Cinematica.coseno(cierra) * senBase, cx, cy);
+        int g2x = px, g2y = py;
+
+        Stroke trazoAnterior = g2.getStroke();
+        g2.setStroke(TRAZO);
+        segmento(g2, p0x, p0y, p1x, p1y, degradadosSeg1, SEG1_CLARO, SEG1_OSCURO);
+        segmento(g2, p1x, p1y, p2x, p2y, degradadosSeg2, SEG2_CLARO, SEG2_OSCURO);
+        segmento(g2, p2x, p2y, g1x, g1y, degradadosPinza, PINZA_CLARO, PINZA_OSCURO);
+        segmento(g2, p2x, p2y, g2x, g2y, degradadosPinza, PINZA_CLARO, PINZA_OSCURO);
+        g2.setStroke(trazoAnterior);
+
+        g2.setColor(Color.DARK_GRAY);
+        g2.fillOval(p0x - 6, p0y - 6, 12, 12);
+        g2.fillOval(p1x - 6, p1y - 6, 12, 12);
+        g2.fillOval(p2x - 6, p2y - 6, 12, 12);
+    }
+
+    /**
+     * Dibuja la línea de a a b en coordenadas locales (origen en a, eje x hacia b) para que
+     * el degradado de 0 a largo sobre el eje x sirva en cualquier dirección.
+     */
+    private void segmento(Graphics2D g2, int ax, int ay, int bx, int by, GradientPaint[] cache, Color claro, Color oscuro) {
+        int dx = bx - ax, dy = by - ay;
+        double distancia = Math.hypot(dx, dy);
+        int largo = (int) Math.round(distancia);
+        if (largo < 1) return; // Segmento de un punto, queda tapado por la articulación
+        GradientPaint degradado;
+        if (largo <= LARGO_MAXIMO) {
+            degradado = cache[largo];
+            if (degradado == null) {
+                degradado = new GradientPaint(0, 0, claro, largo, 0, oscuro);
+                cache[largo] = degradado;
+            }
+        } else {
+            degradado = new GradientPaint(0, 0, claro, largo, 0, oscuro);
+        }
+        double angulo = Math.atan2(dy, dx);
+        g2.translate(ax, ay);
+        g2.rotate(angulo);
+        g2.setPaint(degradado);
+        linea.setLine(0, 0, distancia, 0);
+        g2.draw(linea);
+        g2.rotate(-angulo);
+        g2.translate(-ax, -ay);
+    }
+
+    private void proyectar(double x, double y, double z, int cx, int cy) {
+        double isoX = (x - z) * 0.707;
+        double isoY = y + (x + z) * 0.408;
+        px = (int) (cx + isoX);
+        py = (int) (cy - isoY);
+    }
+
+    /**
+     * Proyecta un punto 3D a la pantalla en vista isométrica.
+     */
+    public static Point project(double x, double y, double z, int cx, int cy) {
+        double isoX = (x - z) * 0.707;
+        double isoY = y + (x + z) * 0.408;
+        return new Point((int) (cx + isoX), (int) (cy - isoY));
+    }
+}
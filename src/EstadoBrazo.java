@@ -0,0 +1,51 @@
+// Foto inmutable del brazo: angulos de los 4 servos, estado del motor a pasos y una
+// version que crece con cada cambio. La publica ModeloBrazo y se puede leer desde
+// cualquier hilo sin candados.
+public final class EstadoBrazo {
+    public static final int SERVOS = 4;
+    public static final EstadoBrazo INICIAL = new EstadoBrazo(0, new int[] {90, 90, 90, 90}, ProtocoloBinario.PASOS_DETENIDO);
+
+    private final long version;
+    private final int[] angulos; // Copia propia, nunca sale de la clase
+    private final byte motorPasos;
+
+    EstadoBrazo(long version, int[] angulos, byte motorPasos) {
+        if(angulos.length != SERVOS) {
+            throw new IllegalArgumentException("Se esperaban " + SERVOS + " angulos: " + angulos.length);
+        }
+        this.version = version;
+        this.angulos = angulos.clone();
+        this.motorPasos = motorPasos;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getAngulo(int servo) {
+        return angulos[servo];
+    }
+
+    // Copia los angulos en un arreglo del que llama (para dibujar sin crear objetos)
+    public void copiarAngulos(int[] destino) {
+        System.arraycopy(angulos, 0, destino, 0, SERVOS);
+    }
+
+    public byte getMotorPasos() {
+        return motorPasos;
+    }
+
+    boolean esIgual(int[] otros, byte otroMotor) {
+        if(otroMotor != motorPasos) return false;
+        for(int i = 0; i < SERVOS; i++) {
+            if(otros[i] != angulos[i]) return false;
+        }
+        return true;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del EstadoBrazo
@@ -0,0 +1,155 @@
+import java.util.Arrays; // Limpieza de los arreglos al desconectarse
+import com.studiohartman.jamepad.ControllerState; // Estado que entrega SDL en cada lectura
+
+// Foto del mando tomada una sola vez por ciclo (ControlXbox.actualizarEstado) y compartida
+// por todos los que la consumen en ese ciclo: la vista y el envio al Arduino ven
+// exactamente el mismo estado. Se guarda en arreglos primitivos que se reutilizan, asi
+// que para los consumidores es de solo lectura y vale hasta la siguiente captura; quien
+// necesite conservarla (por ejemplo el estado anterior) debe copiarla.
+public final class EstadoMando {
+    private final boolean[] botones = new boolean[ControlXbox.Boton.values().length];
+    private final float[] ejes = new float[ControlXbox.Eje.values().length];
+    private boolean conectado;
+    private long marca; // nanoTime al empezar la lectura
+    private long duracionLectura; // Nanosegundos que tardo la lectura de SDL
+    private long numero; // Numero de captura, para saber si dos consumidores vieron la misma
+
+    // Funciones de consulta
+    public boolean isConectado() {
+        return conectado;
+    }
+
+    public boolean boton(ControlXbox.Boton boton) {
+        return botones[boton.ordinal()];
+    }
+
+    public float eje(ControlXbox.Eje eje) {
+        return ejes[eje.ordinal()];
+    }
+
+    // Igual, por ordinal (tablas de MapeoControles)
+    boolean boton(int ordinal) {
+        return botones[ordinal];
+    }
+
+    float eje(int ordinal) {
+        return ejes[ordinal];
+    }
+
+    public float leftStickX() {
+        return ejes[ControlXbox.Eje.LEFT_X.ordinal()];
+    }
+
+    public float leftStickY() {
+        return ejes[ControlXbox.Eje.LEFT_Y.ordinal()];
+    }
+
+    public float rightStickX() {
+        return ejes[ControlXbox.Eje.RIGHT_X.ordinal()];
+    }
+
+    public float rightStickY() {
+        return ejes[ControlXbox.Eje.RIGHT_Y.ordinal()];
+    }
+
+    public float leftTrigger() {
+        return ejes[ControlXbox.Eje.LEFT_TRIGGER.ordinal()];
+    }
+
+    public float rightTrigger() {
+        return ejes[ControlXbox.Eje.RIGHT_TRIGGER.ordinal()];
+    }
+
+    public boolean lb() {
+        return botones[ControlXbox.Boton.LB.ordinal()];
+    }
+
+    public boolean rb() {
+        return botones[ControlXbox.Boton.RB.ordinal()];
+    }
+
+    public boolean start() {
+        return botones[ControlXbox.Boton.START.ordinal()];
+    }
+
+    public long getMarca() {
+        return marca;
+    }
+
+    public long getDuracionLectura() {
+        return duracionLectura;
+    }
+
+    public long getNumero() {
+        return numero;
+    }
+
+    // Funciones de escritura, solo para quien produce la foto (ControlXbox y sus fuentes)
+    void copiar(ControllerState s) {
+        if(s == null || !s.isConnected) {
+            limpiar();
+            return;
+        }
+        conectado = true;
+        poner(ControlXbox.Boton.A, s.a);
+        poner(ControlXbox.Boton.B, s.b);
+        poner(ControlXbox.Boton.X, s.x);
+        poner(ControlXbox.Boton.Y, s.y);
+        poner(ControlXbox.Boton.START, s.start);
+        poner(ControlXbox.Boton.BACK, s.back);
+        poner(ControlXbox.Boton.LB, s.lb);
+        poner(ControlXbox.Boton.RB, s.rb);
+        poner(ControlXbox.Boton.DPAD_UP, s.dpadUp);
+        poner(ControlXbox.Boton.DPAD_DOWN, s.dpadDown);
+        poner(ControlXbox.Boton.DPAD_LEFT, s.dpadLeft);
+        poner(ControlXbox.Boton.DPAD_RIGHT, s.dpadRight);
+        poner(ControlXbox.Boton.LEFT_STICK_CLICK, s.leftStickClick);
+        poner(ControlXbox.Boton.RIGHT_STICK_CLICK, s.rightStickClick);
+        poner(ControlXbox.Eje.LEFT_X, s.leftStickX);
+        poner(ControlXbox.Eje.LEFT_Y, s.leftStickY);
+        poner(ControlXbox.Eje.RIGHT_X, s.rightStickX);
+        poner(ControlXbox.Eje.RIGHT_Y, s.rightStickY);
+        poner(ControlXbox.Eje.LEFT_TRIGGER, s.leftTrigger);
+        poner(ControlXbox.Eje.RIGHT_TRIGGER, s.rightTrigger);
+    }
+
+    void copiar(EstadoMando otro) {
+        System.arraycopy(otro.botones, 0, botones, 0, botones.length);
+        System.arraycopy(otro.ejes, 0, ejes, 0, ejes.length);
+        conectado = otro.conectado;
+        marca = otro.marca;
+        duracionLectura = otro.duracionLectura;
+        numero = otro.numero;
+    }
+
+    void limpiar() {
+        conectado = false;
+        Arrays.fill(botones, false);
+        Arrays.fill(ejes, 0f);
+    }
+
+    void setConectado(boolean conectado) {
+        this.conectado = conectado;
+    }
+
+    void poner(ControlXbox.Boton boton, boolean presionado) {
+        botones[boton.ordinal()] = presionado;
+    }
+
+    void poner(ControlXbox.Eje eje, float valor) {
+        ejes[eje.ordinal()] = valor;
+    }
+
+    // Cierra la captura con el momento de la lectura y su duracion
+    void sellar(long marca, long duracionLectura) {
+        this.marca = marca;
+        this.duracionLectura = duracionLectura;
+        this.numero++;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del EstadoMando
@@ -0,0 +1,124 @@
+import java.io.IOException; // Errores al crear o mapear el archivo
+import java.nio.MappedByteBuffer; // Archivo mapeado en memoria
+import java.nio.channels.FileChannel; // Canal para mapear el archivo
+import java.nio.file.Files; // Creacion de la carpeta
+import java.nio.file.Path; // Ruta del archivo
+import java.nio.file.StandardOpenOption; // Modo de apertura del archivo
+
+// Graba los estados que publica el brazo (ModeloBrazo) en un archivo de solo agregar
+// mapeado en memoria, para reproducirlos despues con ReproductorMovimientos.
+//
+// Formato (big endian):
+//   cabecera: magia "BKMV" (4) | version (4) | total de registros (8)
+//   registro: nanosegundos desde el inicio (8) | 4 angulos (1 c/u) | motor a pasos (1) | relleno (3)
+//
+// El total de la cabecera se actualiza despues de cada registro, asi que lo grabado es
+// valido aunque el programa se cierre sin llamar a detener. Grabar un estado no crea
+// objetos: solo escribe en el mapa; el archivo crece (y se vuelve a mapear) por bloques y
+// detener lo recorta al ultimo registro, sin el relleno del bloque.
+public class GrabadorMovimientos implements ModeloBrazo.Oyente, AutoCloseable {
+    public static final Path ARCHIVO = CarpetaDatos.RUTA.resolve("movimientos.bkm");
+    public static final int MAGIA = 0x424B4D56; // "BKMV"
+    public static final int VERSION = 1;
+    public static final int CABECERA = 16;
+    public static final int LARGO_REGISTRO = 16;
+    private static final int BLOQUE = 1 << 20; // El mapa crece de 1 MiB en 1 MiB
+
+    private final ModeloBrazo modelo;
+    private final FileChannel canal;
+    private MappedByteBuffer mapa;
+    private int posicion = CABECERA;
+    private long total = 0;
+    private final long inicio; // nanoTime del primer registro
+    private boolean grabando = true;
+
+    // Empieza a grabar en el archivo dado (se sobrescribe) los cambios del modelo
+    public GrabadorMovimientos(ModeloBrazo modelo, Path archivo) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if(carpeta != null) Files.createDirectories(carpeta);
+        this.modelo = modelo;
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, BLOQUE);
+        mapa.putInt(0, MAGIA);
+        mapa.putInt(4, VERSION);
+        mapa.putLong(8, 0);
+        this.inicio = System.nanoTime();
+        // La pose de partida va primero, en el instante 0
+        escribir(modelo.getEstado(), inicio);
+        modelo.agregarOyente(this);
+    }
+
+    public GrabadorMovimientos(ModeloBrazo modelo) throws IOException {
+        this(modelo, ARCHIVO);
+    }
+
+    @Override
+    public void alCambiar(EstadoBrazo estado) {
+        escribir(estado, System.nanoTime());
+    }
+
+    private synchronized void escribir(EstadoBrazo estado, long marca) {
+        if(!grabando) return;
+        if(posicion + LARGO_REGISTRO > mapa.capacity() && !crecer()) return;
+        mapa.putLong(posicion, marca - inicio);
+        for(int s = 0; s < EstadoBrazo.SERVOS; s++) {
+            mapa.put(posicion + 8 + s, (byte) estado.getAngulo(s));
+        }
+        mapa.put(posicion + 8 + EstadoBrazo.SERVOS, estado.getMotorPasos());
+        posicion += LARGO_REGISTRO;
+        mapa.putLong(8, ++total);
+    }
+
+    // Mapea un bloque mas; solo ocurre cada BLOQUE / LARGO_REGISTRO registros
+    private boolean crecer() {
+        try {
+            long nuevo = (long) mapa.capacity() + BLOQUE;
+            if(nuevo > Integer.MAX_VALUE) throw new IOException("La grabacion llego al limite de 2 GB");
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, nuevo);
+            return true;
+        } catch(IOException e) {
+            System.out.println("Se detiene la grabacion: " + e.getMessage());
+            grabando = false;
+            return false;
+        }
+    }
+
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    public synchronized boolean isGrabando() {
+        return grabando;
+    }
+
+    // Deja de grabar, baja lo escrito a disco y quita el relleno del ultimo bloque
+    public synchronized void detener() {
+        if(!grabando && !canal.isOpen()) return;
+        grabando = false;
+        modelo.quitarOyente(this);
+        try {
+            mapa.force();
+            try {
+                canal.truncate(CABECERA + total * LARGO_REGISTRO);
+            } catch(IOException e) {
+                // Windows no deja recortar un archivo mapeado; el total de la cabecera sigue siendo valido
+                System.out.println("No se pudo recortar la grabacion: " + e.getMessage());
+            }
+            canal.close();
+        } catch(IOException e) {
+            System.out.println("Error al cerrar la grabacion: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        detener();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del GrabadorMovimientos
@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.AtomicLong; // Maximo y total compartidos entre hilos
+import java.util.concurrent.atomic.AtomicLongArray; // Conteo por casilla sin bloqueos
+
+// Histograma de latencias al estilo HDR: casillas lineales hasta 128 ns y despues 64
+// casillas por cada potencia de 2, lo que da una precision de ~1.5 % en todo el rango
+// (hasta ~18 minutos). Registrar es una suma atomica, sin objetos ni bloqueos.
+public class HistogramaLatencia {
+    private static final int BITS_SUB = 6; // 64 casillas por potencia de 2
+    private static final int SUB = 1 << BITS_SUB;
+    private static final int MAX_DESPLAZAMIENTO = 34; // Valores hasta 2^40 ns
+    private static final int CASILLAS = 2 * SUB + MAX_DESPLAZAMIENTO * SUB;
+    private static final long MAXIMO_REGISTRABLE = (1L << (MAX_DESPLAZAMIENTO + BITS_SUB + 1)) - 1;
+
+    private final String nombre;
+    private final AtomicLongArray conteos = new AtomicLongArray(CASILLAS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    // Constructor
+    public HistogramaLatencia(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    // Registra una duracion en nanosegundos
+    public void registrar(long nanos) {
+        if(nanos < 0) nanos = 0;
+        if(nanos > MAXIMO_REGISTRABLE) nanos = MAXIMO_REGISTRABLE;
+        conteos.incrementAndGet(indice(nanos));
+        total.incrementAndGet();
+        long actual;
+        while(nanos > (actual = maximo.get())) {
+            if(maximo.compareAndSet(actual, nanos)) break;
+        }
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    // Valor (ns) por debajo del cual queda el porcentaje indicado de las muestras
+    public long percentil(double porcentaje) {
+        long n = total.get();
+        if(n == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(n * porcentaje / 100.0));
+        long acumulado = 0;
+        for(int i = 0; i < CASILLAS; i++) {
+            acumulado += conteos.get(i);
+            if(acumulado >= objetivo) return Math.min(valorDe(i), maximo.get());
+        }
+        return maximo.get();
+    }
+
+    public void reiniciar() {
+        for(int i = 0; i < CASILLAS; i++) conteos.set(i, 0);
+        total.set(0);
+        maximo.set(0);
+    }
+
+    // Resumen en una linea, en microsegundos
+    public String resumen() {
+        return String.format("%-22s n=%-8d p50=%8.1f  p99=%8.1f  p99.9=%8.1f  max=%8.1f us",
+                nombre, getTotal(), percentil(50) / 1e3, percentil(99) / 1e3, percentil(99.9) / 1e3, getMaximo() / 1e3);
+    }
+
+    // Funciones para convertir entre valor y casilla
+    private static int indice(long valor) {
+        if(valor < 2 * SUB) return (int) valor;
+        int desplazamiento = (63 - Long.numberOfLeadingZeros(valor)) - BITS_SUB;
+        int superior = (int) (valor >>> desplazamiento); // Entre SUB y 2*SUB - 1
+        return 2 * SUB + (desplazamiento - 1) * SUB + (superior - SUB);
+    }
+
+    // Limite superior de la casilla
+    private static long valorDe(int indice) {
+        if(indice < 2 * SUB) return indice;
+        int k = indice - 2 * SUB;
+        int desplazamiento = k / SUB + 1;
+        long superior = k % SUB + SUB;
+        return ((superior + 1) << desplazamiento) - 1;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del HistogramaLatencia
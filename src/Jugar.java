@@ -1,10 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.Timer;
-import java.util.TimerTask;
-import javax.swing.SwingWorker;
-import com.studiohartman.jamepad.ControllerState;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Clase principal que gestiona el control de un robot con 4 servomotores
@@ -20,6 +17,10 @@ public class Jugar extends JFrame {
     private JPanel mainPanel = new JPanel(cardLayout);
     private JuegoPanel juegoPanel;
     private JPanel instruccionesPanel;
+    // Dispositivos guardados en Configuracion; vacío si nunca se guardaron (ver PerfilDispositivos)
+    private final PerfilDispositivos perfil = PerfilDispositivos.leer();
+    // Asignaciones del mando, se leen una sola vez (las del perfil o las de siempre, ver MapeoControles)
+    private final MapeoControles mapeo = perfil.cargarMapeo();
 
     /**
      * Constructor principal - Inicializa la ventana y sus componentes.
@@ -41,6 +42,14 @@ public class Jugar extends JFrame {
 
         add(mainPanel);
 
+        // Guardar las latencias medidas si se cierra la ventana directamente
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                juegoPanel.guardarLatencias();
+            }
+        });
+
         // Configurar captura global de teclas para iniciar el juego con ENTER
         KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
             if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_ENTER) {
@@ -78,15 +87,13 @@ public class Jugar extends JFrame {
         lblTitulo.setFont(UIUtils.TITLE_FONT);
         panel.add(lblTitulo, BorderLayout.NORTH);
 
-        JPanel cards = new JPanel(new GridLayout(0, 1, 10, 10));
+        // Las tarjetas salen del mapeo cargado, así siempre muestran lo que hace cada control
+        JPanel cards = new JPanel(new GridLayout(0, 2, 10, 10));
         cards.setOpaque(false);
         cards.setBorder(BorderFactory.createEmptyBorder(20, 150, 20, 150));
-        cards.add(crearTarjeta("Stick Izq", "Hombro/Codo"));
-        cards.add(crearTarjeta("Stick Der", "Muñeca/Rotación"));
-        cards.add(crearTarjeta("Gatillos (LT/RT)", "Abrir/Cerrar pinza"));
-        cards.add(crearTarjeta("D-Pad", "Velocidad ±"));
-        cards.add(crearTarjeta("A / B", "Preset 1 / Preset 2"));
-        cards.add(crearTarjeta("Start / Back", "Pausa / E-Stop"));
+        for (String[] descripcion : mapeo.getDescripciones()) {
+            cards.add(crearTarjeta(descripcion[0], descripcion[1]));
+        }
         panel.add(cards, BorderLayout.CENTER);
 
         JPanel botones = new JPanel(new FlowLayout(FlowLayout.CENTER, 40, 20));
@@ -138,18 +145,59 @@ public class Jugar extends JFrame {
     class JuegoPanel extends JPanel {
         private JLabel lblEstado = new JLabel("Inicializando...");
         private JLabel[] lblServos = new JLabel[4];
-        private int[] angulos = {90, 90, 90, 90};
+        // Estado publicado del brazo: lo escribe ControlArduino y aquí solo se dibuja
+        private final ModeloBrazo modelo = new ModeloBrazo();
+        private final int[] angulosDibujo = new int[EstadoBrazo.SERVOS];
+        // Hay cambios del modelo sin dibujar; el ciclo de control solo marca, no toca el EDT
+        private final AtomicBoolean refrescoPendiente = new AtomicBoolean(false);
+        // Como mucho un refresco por cuadro de pantalla, por rápido que corra el ciclo de control
+        private static final int CUADROS_POR_SEGUNDO = 60;
+        private javax.swing.Timer cuadros = new javax.swing.Timer(1000 / CUADROS_POR_SEGUNDO, e -> refrescarCuadro());
+        // Dibujo del brazo con sus degradados, tablas y capa fija reutilizados entre cuadros
+        private final DibujoBrazo dibujo = new DibujoBrazo();
+        // Textos de las etiquetas por servo y ángulo, y el último ángulo mostrado en cada una
+        private final String[][] textosServos = new String[4][181];
+        private final int[] angulosEtiquetas = {-1, -1, -1, -1};
+        private static final Color FONDO_LATENCIAS = new Color(0, 0, 0, 170);
+        private static final Font FUENTE_LATENCIAS = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+        // Telemetría: la escribe el hilo del ciclo de control sin crear objetos y la dibuja el panel
+        private static final String[] SENALES_TELEMETRIA = {"Base", "Hombro", "Codo", "Pinza", "Comandos/s", "Cola", "Retraso us"};
+        private static final int MUESTRAS_TELEMETRIA = 8192; // Unos 40 s a 200 Hz, 5 s a más de 1.5 kHz
+        private final BufferTelemetria telemetria = new BufferTelemetria(SENALES_TELEMETRIA.length, MUESTRAS_TELEMETRIA);
+        private PanelTelemetria panelTelemetria;
+        private JButton btnTelemetria;
+        // Solo las usa el hilo del ciclo de control, para la tasa de comandos
+        private long telemetriaMarca;
+        private long telemetriaEnviados;
+        private double telemetriaTasa;
         private ControlArduino controlArduino;
-        private Timer gamepadTimer;
+        private BucleControl bucleControl;
+        // Hilos de los dispositivos de la sesión (conexión, lector, escritor y supervisor del puerto)
+        private AmbitoDispositivos ambitoSesion;
+        // Frecuencia del ciclo de control: la entrada se lee cada 5 ms en lugar de cada 50 ms
+        private static final double FRECUENCIA_CONTROL = 200.0;
+        private boolean desconectado = false;
         private boolean salir = false;
         private JProgressBar progreso = new JProgressBar(0, 100);
         private JLabel progresoLabel = new JLabel();
         private JButton btnCentrar;
+        private JButton btnModo;
+        private JButton btnGrabar;
+        private JButton btnReproducir;
+        // Grabación y reproducción de movimientos (ver GrabadorMovimientos)
+        private GrabadorMovimientos grabador;
+        private ReproductorMovimientos reproductor;
+        private boolean mostrarLatencias = false;
+        // Refresca la superposición de latencias aunque el brazo no se mueva
+        private javax.swing.Timer refrescoLatencias = new javax.swing.Timer(250, e -> repaint());
+        // Sigue el progreso de la trayectoria en curso (centrar o pose)
+        private javax.swing.Timer seguimientoProgreso;
 
         public JuegoPanel() {
             setLayout(null);
             setBackground(new Color(240, 255, 240));
             configurarInterfaz();
+            modelo.agregarOyente(estado -> programarRefresco());
 
             // Configurar etiquetas para mostrar el estado de los servos
             for (int i = 0; i < 4; i++) {
@@ -187,6 +235,74 @@ public class Jugar extends JFrame {
             btnCentrar.addActionListener(e -> centrarServos());
             add(btnCentrar);
 
+            JButton btnLatencias = UIUtils.createButton("Latencias (F3)", new Color(96, 125, 139));
+            btnLatencias.setBounds(360, 20, 190, 35);
+            btnLatencias.addActionListener(e -> alternarLatencias());
+            add(btnLatencias);
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "latencias");
+            getActionMap().put("latencias", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    alternarLatencias();
+                }
+            });
+
+            btnModo = UIUtils.createButton("Sticks: digital (F4)", new Color(121, 85, 72));
+            btnModo.setBounds(560, 20, 230, 35);
+            btnModo.addActionListener(e -> alternarModoEjes());
+            add(btnModo);
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F4, 0), "modoEjes");
+            getActionMap().put("modoEjes", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    alternarModoEjes();
+                }
+            });
+
+            btnGrabar = UIUtils.createButton("Grabar (F5)", new Color(183, 28, 28));
+            btnGrabar.setBounds(800, 20, 170, 35);
+            btnGrabar.addActionListener(e -> alternarGrabacion());
+            add(btnGrabar);
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0), "grabar");
+            getActionMap().put("grabar", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    alternarGrabacion();
+                }
+            });
+
+            btnReproducir = UIUtils.createButton("Reproducir (F6)", new Color(0, 121, 107));
+            btnReproducir.setBounds(980, 20, 190, 35);
+            btnReproducir.addActionListener(e -> alternarReproduccion());
+            add(btnReproducir);
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F6, 0), "reproducir");
+            getActionMap().put("reproducir", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    alternarReproduccion();
+                }
+            });
+
+            btnTelemetria = UIUtils.createButton("Telemetría (F7)", new Color(63, 81, 181));
+            btnTelemetria.setBounds(980, 65, 190, 35);
+            btnTelemetria.addActionListener(e -> alternarTelemetria());
+            add(btnTelemetria);
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F7, 0), "telemetria");
+            getActionMap().put("telemetria", new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    alternarTelemetria();
+                }
+            });
+
+            panelTelemetria = new PanelTelemetria(telemetria, SENALES_TELEMETRIA,
+                    new double[]{0, 0, 0, 0, 0, 0, 0},
+                    new double[]{180, 180, 180, 180, Double.NaN, PuertoSerial.CAPACIDAD_COLA, Double.NaN}, 5);
+            // A la derecha, bajo los servos, para no tapar la superposición de latencias (F3)
+            panelTelemetria.setBounds(830, 255, 340, 355);
+            panelTelemetria.setVisible(false);
+            add(panelTelemetria);
+
             progresoLabel.setBounds(300, 620, 600, 25);
             progresoLabel.setHorizontalAlignment(SwingConstants.CENTER);
             progresoLabel.setFont(UIUtils.LABEL_FONT);
@@ -200,67 +316,108 @@ public class Jugar extends JFrame {
         
         /**
          * Inicializa las conexiones con el hardware (Arduino y Mando Xbox).
+         * Cada sesión tiene su propio ámbito de dispositivos: la detección, la espera y la
+         * negociación con el Arduino corren en un hilo virtual de ese ámbito en lugar de
+         * congelar la ventana, y salirAlMenu lo cierra junto con los hilos del puerto.
          */
         private void inicializarConexiones() {
+            if (ambitoSesion != null) ambitoSesion.cerrar();
+            ambitoSesion = AmbitoDispositivos.global().abrir("Jugar");
             try {
-                controlArduino = new ControlArduino();
-
-                // 1. Conectar al control de Xbox
-                controlArduino.controlXbox.listarControles();
-                if (controlArduino.controlXbox.seleccionarControlPorLista(0)) {
-                    lblEstado.setText("Control Xbox conectado. ");
-                } else {
-                    lblEstado.setText("Error: No se encontró control Xbox. ");
+                PuertoSerial puerto = new PuertoSerial();
+                puerto.setAmbito(ambitoSesion);
+                controlArduino = new ControlArduino(new ControlXbox(), puerto, modelo);
+                controlArduino.setMapeo(mapeo);
+                controlArduino.setOyenteAcciones(accion -> SwingUtilities.invokeLater(() -> alEjecutarAccion(accion)));
+            } catch (Exception e) {
+                lblEstado.setText("Error fatal en inicialización: " + e.getMessage());
+                e.printStackTrace();
+                return;
+            }
+            ControlArduino control = controlArduino;
+            AmbitoDispositivos ambito = ambitoSesion;
+            ambito.iniciar("conexion", () -> conectarHardware(control, ambito));
+        }
+
+        /**
+         * Conecta el mando y el Arduino fuera del EDT; los mensajes se publican con invokeLater.
+         * Si se sale del juego a media conexión, el ámbito interrumpe la espera y el puerto se cierra.
+         */
+        private void conectarHardware(ControlArduino control, AmbitoDispositivos ambito) {
+            try {
+                // 1. Conectar al control de Xbox: el del perfil si sigue conectado, si no el primero
+                control.controlXbox.listarControles();
+                int indiceMando = Math.max(0, control.controlXbox.buscarControl(perfil.getMando(), perfil.getIndiceMando()));
+                if (!control.controlXbox.seleccionarControlPorLista(indiceMando)) {
+                    mostrarEstado("Error: No se encontró control Xbox. ");
                     return; // Detener si no hay control
                 }
+                String estado = "Control Xbox conectado. ";
+                mostrarEstado(estado);
 
-                // 2. Conectar al Arduino
-                if (controlArduino.arduino.detectarArduino()) {
-                    controlArduino.arduino.configurarPuerto(9600);
-                    if (controlArduino.arduino.abrirPuerto()) {
-                        lblEstado.setText(lblEstado.getText() + "Arduino conectado en " + controlArduino.arduino.getPortName());
-                         // Espera para que Arduino se inicialice
-                        try { Thread.sleep(2000); } catch (InterruptedException ignored) {}
-                    } else {
-                         lblEstado.setText(lblEstado.getText() + "Error al abrir puerto Arduino.");
-                         return; // Detener si no se abre el puerto
-                    }
-                } else {
-                    lblEstado.setText(lblEstado.getText() + "Error: Arduino no detectado.");
+                // 2. Conectar al Arduino: directo al puerto del perfil, si no se busca
+                if (!control.arduino.detectarArduino(perfil.getPuerto())) {
+                    mostrarEstado(estado + "Error: Arduino no detectado.");
                     return; // Detener si no hay Arduino
                 }
+                // Con una velocidad fija en el perfil no se negocia (el firmware ya está a esa velocidad)
+                control.arduino.configurarPuerto(perfil.getBaudios() > 0 ? perfil.getBaudios() : 9600);
+                if (!control.arduino.abrirPuerto()) {
+                    mostrarEstado(estado + "Error al abrir puerto Arduino.");
+                    return; // Detener si no se abre el puerto
+                }
+                mostrarEstado(estado + "Arduino conectado en " + control.arduino.getPortName());
+                // Espera para que Arduino se inicialice (no si el puerto llegó abierto del descubridor)
+                if (!control.arduino.isArduinoListo()) Thread.sleep(2000);
+                // Subir la velocidad si el Arduino lo permite (se recuerda por puerto)
+                if (perfil.getBaudios() <= 0) control.arduino.negociarBaudios();
+                // Acordar el protocolo (binario si el Arduino lo soporta, si no ASCII)
+                if (control.arduino.negociarProtocolo() == PuertoSerial.Protocolo.BINARIO) {
+                    control.setModoConfiable(true); // El firmware binario confirma cada trama
+                }
+                // Configuraciones que chocan con la mesa o la base (se calcula la primera vez)
+                control.setMapaSeguridad(MapaSeguridad.cargar(control.getCinematica()));
 
                 // 3. Iniciar el bucle de lectura del mando
-                iniciarBucleDeControl();
-
+                SwingUtilities.invokeLater(() -> {
+                    if (!ambito.isCerrado()) iniciarBucleDeControl();
+                });
+            } catch (InterruptedException e) {
+                // Se salió del juego mientras se conectaba
             } catch (Exception e) {
-                lblEstado.setText("Error fatal en inicialización: " + e.getMessage());
+                if (!ambito.isCerrado()) mostrarEstado("Error fatal en inicialización: " + e.getMessage());
                 e.printStackTrace();
+            } finally {
+                if (ambito.isCerrado()) control.arduino.cerrarPuerto(); // Abierto después de salirAlMenu
             }
         }
+
+        /**
+         * Publica un mensaje de estado desde cualquier hilo.
+         */
+        private void mostrarEstado(String texto) {
+            SwingUtilities.invokeLater(() -> lblEstado.setText(texto));
+        }
         
         /**
-         * Inicia el Timer que lee el estado del control y envía los datos.
+         * Inicia el ciclo de control que lee el estado del control y envía los datos.
+         * Una excepción en un ciclo se cuenta en el BucleControl y no detiene los siguientes.
          */
         private void iniciarBucleDeControl() {
-            if (gamepadTimer != null) gamepadTimer.cancel();
-            
-            gamepadTimer = new Timer();
-            gamepadTimer.scheduleAtFixedRate(new TimerTask() {
-                @Override
-                public void run() {
-                    if (salir) {
-                        this.cancel();
-                        return;
-                    }
-                    try {
-                        actualizarYEnviarComandos();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        // Opcional: mostrar error en lblEstado
-                    }
-                }
-            }, 100, 50); // Lee el estado del control cada 50ms
+            if (bucleControl != null) bucleControl.detener();
+
+            bucleControl = new BucleControl("JuegoPanel-control", FRECUENCIA_CONTROL,
+                    BucleControl.PoliticaRetraso.SALTAR, () -> {
+                        if (!salir) actualizarYEnviarComandos();
+                    });
+            bucleControl.iniciar();
+        }
+
+        /**
+         * Detiene el ciclo de control, si está corriendo.
+         */
+        private void detenerBucleDeControl() {
+            if (bucleControl != null) bucleControl.detener();
         }
         
         /**
@@ -268,50 +425,93 @@ public class Jugar extends JFrame {
          * Lee el mando, actualiza los ángulos para la GUI y envía comandos al Arduino.
          */
         private void actualizarYEnviarComandos() {
-            if (controlArduino == null || !controlArduino.controlXbox.isConnected() || !controlArduino.arduino.getisOpen()) {
-                SwingUtilities.invokeLater(() -> lblEstado.setText("Hardware desconectado. Intentando reconectar..."));
+            if (controlArduino == null) return;
+
+            // Una sola lectura del mando por ciclo, la comparten la vista y el envío al Arduino
+            EstadoMando estado = controlArduino.controlXbox.actualizarEstado();
+            if (!estado.isConectado() || !controlArduino.arduino.getisOpen()) {
+                // Solo se avisa al cambiar, el ciclo corre cientos de veces por segundo
+                if (!desconectado) {
+                    desconectado = true;
+                    SwingUtilities.invokeLater(() -> lblEstado.setText("Hardware desconectado. Intentando reconectar..."));
+                }
                 // Opcional: podrías intentar llamar a inicializarConexiones() de nuevo aquí.
+                // Sin mando, una trayectoria en curso (por ejemplo centrar) igual termina
+                controlArduino.avanzarTrayectoria(estado.getMarca());
+                muestrearTelemetria(estado.getMarca());
                 return;
             }
+            desconectado = false;
 
-            // Actualiza el estado del control
-            controlArduino.controlXbox.actualizarEstado();
-            ControllerState estado = controlArduino.controlXbox.getState();
-            if (estado == null) return;
-
-            final float DEADZONE = 0.25f;
-            boolean anguloCambiado = false;
-
-            // Lógica para actualizar los ángulos VISUALES (para el dibujo)
-            // Servo 0: Base (Stick Izquierdo X)
-            if (estado.leftStickX > DEADZONE) { angulos[0] = Math.min(180, angulos[0] + 2); anguloCambiado = true; }
-            else if (estado.leftStickX < -DEADZONE) { angulos[0] = Math.max(0, angulos[0] - 2); anguloCambiado = true; }
-            // Servo 1: Hombro (Stick Izquierdo Y)
-            if (estado.leftStickY < -DEADZONE) { angulos[1] = Math.min(180, angulos[1] + 2); anguloCambiado = true; }
-            else if (estado.leftStickY > DEADZONE) { angulos[1] = Math.max(0, angulos[1] - 2); anguloCambiado = true; }
-            // Servo 2: Codo (Stick Derecho Y)
-            if (estado.rightStickY < -DEADZONE) { angulos[2] = Math.min(180, angulos[2] + 2); anguloCambiado = true; }
-            else if (estado.rightStickY > DEADZONE) { angulos[2] = Math.max(0, angulos[2] - 2); anguloCambiado = true; }
-            
-            // Envía los comandos de un carácter al Arduino
-            controlArduino.mandarDatos();
-            
-            // La lógica para el Servo 3 y los motores a pasos ya está en controlArduino.mandarDatos().
-            // Pero necesitamos simular el cambio del servo 3 para la GUI.
-            if (estado.rb) { angulos[3] = Math.min(180, angulos[3] + 5); anguloCambiado = true; }
-            else if (estado.lb) { angulos[3] = Math.max(0, angulos[3] - 5); anguloCambiado = true; }
-
-            // Botón START para centrar
-            if (estado.start) {
-                SwingUtilities.invokeLater(this::centrarServos);
+            // Envía los comandos al Arduino según el mapeo; lo enviado se publica en el modelo
+            // y la vista se refresca desde su oyente
+            controlArduino.mandarDatos(estado);
+            muestrearTelemetria(estado.getMarca());
+        }
+
+        /**
+         * Agrega una muestra de telemetría desde el hilo del ciclo de control, sin crear objetos.
+         * @param marca Instante de la lectura del mando.
+         */
+        private void muestrearTelemetria(long marca) {
+            EstadoBrazo actual = modelo.getEstado();
+            for (int i = 0; i < EstadoBrazo.SERVOS; i++) telemetria.poner(i, actual.getAngulo(i));
+            PuertoSerial puerto = controlArduino.arduino;
+            long enviados = puerto.getComandosEnviados();
+            if (telemetriaMarca != 0 && marca > telemetriaMarca) {
+                double tasa = (enviados - telemetriaEnviados) * 1e9 / (marca - telemetriaMarca);
+                telemetriaTasa += 0.05 * (tasa - telemetriaTasa); // Suavizado, cada ciclo manda 0 o pocos comandos
             }
-            
-            // Si algún ángulo cambió, actualizamos la GUI
-            if (anguloCambiado) {
-                 SwingUtilities.invokeLater(() -> {
-                     actualizarLabelsServos();
-                     repaint(); // Redibuja el brazo robótico
-                 });
+            telemetriaMarca = marca;
+            telemetriaEnviados = enviados;
+            telemetria.poner(4, telemetriaTasa);
+            telemetria.poner(5, puerto.getProfundidadCola());
+            BucleControl bucle = bucleControl;
+            telemetria.poner(6, bucle != null ? bucle.getUltimoRetraso() / 1e3 : 0);
+            telemetria.publicar(marca);
+        }
+
+        /**
+         * Muestra en la interfaz el efecto de una acción del mapeo ejecutada desde el mando.
+         * @param accion Acción que ejecutó ControlArduino.
+         */
+        private void alEjecutarAccion(MapeoControles.Accion accion) {
+            switch (accion) {
+                case CENTRAR -> mostrarProgreso("Regresando a origen...", "Origen alcanzado");
+                case PARO -> {
+                    if (controlArduino.isParo()) {
+                        detenerReproduccion();
+                        lblEstado.setText("PARO DE EMERGENCIA: presiona el mismo botón para liberar");
+                        lblEstado.setForeground(new Color(244, 67, 54));
+                    } else {
+                        lblEstado.setText("Paro liberado");
+                        lblEstado.setForeground(UIManager.getColor("Label.foreground"));
+                    }
+                }
+                case VELOCIDAD_MAS, VELOCIDAD_MENOS ->
+                        lblEstado.setText("Velocidad x" + controlArduino.getEscalaVelocidad());
+                case POSE -> mostrarProgreso("Moviendo a pose guardada...", "Pose alcanzada");
+                case GRABAR -> alternarGrabacion();
+                case REPRODUCIR -> alternarReproduccion();
+                default -> { }
+            }
+        }
+
+        /**
+         * Marca que el modelo cambió. Se llama desde el hilo que publicó y no encola nada en el
+         * EDT: el temporizador de cuadros junta todos los cambios de un cuadro en un solo refresco.
+         */
+        private void programarRefresco() {
+            refrescoPendiente.set(true);
+        }
+
+        /**
+         * Cada cuadro, si hubo cambios, actualiza las etiquetas y redibuja con la última versión del modelo.
+         */
+        private void refrescarCuadro() {
+            if (refrescoPendiente.getAndSet(false)) {
+                actualizarLabelsServos();
+                repaint(); // Redibuja el brazo robótico
             }
         }
         
@@ -319,67 +519,60 @@ public class Jugar extends JFrame {
          * Actualiza las etiquetas que muestran los ángulos de los servos.
          */
         private void actualizarLabelsServos() {
+             EstadoBrazo estado = modelo.getEstado();
              for(int i = 0; i < 4; i++) {
-                 lblServos[i].setText(String.format("Servo %d: %d°", i + 1, angulos[i]));
+                 int angulo = estado.getAngulo(i);
+                 if (angulo == angulosEtiquetas[i]) continue; // Sin cambio, no se invalida la etiqueta
+                 angulosEtiquetas[i] = angulo;
+                 String texto = (angulo >= 0 && angulo <= 180) ? textosServos[i][angulo] : null;
+                 if (texto == null) {
+                     texto = "Servo " + (i + 1) + ": " + angulo + "°";
+                     if (angulo >= 0 && angulo <= 180) textosServos[i][angulo] = texto;
+                 }
+                 lblServos[i].setText(texto);
              }
         }
         
-        /**
-         * Envía el comando para centrar todos los servos y actualiza la GUI.
-         */
+        /**
+         * Planea el regreso de todos los servos al centro y muestra su progreso.
+         */
         private void centrarServos() {
+            if (controlArduino != null && controlArduino.centrar()) {
+                mostrarProgreso("Regresando a origen...", "Origen alcanzado");
+            }
+        }
+
+        /**
+         * Muestra el progreso real de la trayectoria en curso (la planeada por ControlArduino),
+         * consultándolo en el EDT hasta que termina o se cancela.
+         * @param texto Mensaje mientras se mueve el brazo.
+         * @param textoFinal Mensaje al llegar.
+         */
+        private void mostrarProgreso(String texto, String textoFinal) {
+            if (seguimientoProgreso != null) seguimientoProgreso.stop();
             btnCentrar.setEnabled(false);
             progreso.setValue(0);
             progreso.setVisible(true);
-            progresoLabel.setText("Regresando a origen...");
+            progresoLabel.setText(texto);
             progresoLabel.setForeground(new Color(33, 150, 243));
             progresoLabel.setVisible(true);
 
-            if (controlArduino != null && controlArduino.arduino.getisOpen()) {
-                controlArduino.arduino.enviarDatos("c");
-            }
-
-            SwingWorker<Void, Integer> worker = new SwingWorker<>() {
-                @Override
-                protected Void doInBackground() throws Exception {
-                    int pasos = 50;
-                    for (int s = 0; s <= pasos; s++) {
-                        for (int i = 0; i < 4; i++) {
-                            if (angulos[i] < 90) angulos[i]++;
-                            else if (angulos[i] > 90) angulos[i]--;
-                        }
-                        publish(s * 100 / pasos);
-                        Thread.sleep(40);
-                    }
-                    return null;
-                }
-
-                @Override
-                protected void process(java.util.List<Integer> chunks) {
-                    int v = chunks.get(chunks.size() - 1);
-                    progreso.setValue(v);
-                    actualizarLabelsServos();
-                    repaint();
-                }
-
-                @Override
-                protected void done() {
-                    progresoLabel.setText("Origen alcanzado");
-                    progresoLabel.setForeground(new Color(76, 175, 80));
-                    btnCentrar.setEnabled(true);
-                    Timer t = new Timer();
-                    t.schedule(new TimerTask() {
-                        @Override
-                        public void run() {
-                            SwingUtilities.invokeLater(() -> {
-                                progreso.setVisible(false);
-                                progresoLabel.setVisible(false);
-                            });
-                        }
-                    }, 1000);
-                }
-            };
-            worker.execute();
+            seguimientoProgreso = new javax.swing.Timer(40, null);
+            seguimientoProgreso.addActionListener(e -> {
+                progreso.setValue((int) Math.round(controlArduino.getProgresoTrayectoria() * 100));
+                if (controlArduino.hayTrayectoria()) return;
+                seguimientoProgreso.stop();
+                progresoLabel.setText(controlArduino.getProgresoTrayectoria() >= 1 ? textoFinal : "Movimiento interrumpido");
+                progresoLabel.setForeground(new Color(76, 175, 80));
+                btnCentrar.setEnabled(true);
+                javax.swing.Timer ocultar = new javax.swing.Timer(1000, ev -> {
+                    progreso.setVisible(false);
+                    progresoLabel.setVisible(false);
+                });
+                ocultar.setRepeats(false);
+                ocultar.start();
+            });
+            seguimientoProgreso.start();
         }
 
         /**
@@ -387,10 +580,22 @@ public class Jugar extends JFrame {
          */
         private void salirAlMenu() {
             salir = true;
-            if (gamepadTimer != null) gamepadTimer.cancel();
+            detenerReproduccion();
+            detenerGrabacion();
+            detenerBucleDeControl();
+            refrescoLatencias.stop();
+            cuadros.stop();
+            panelTelemetria.detener();
+            guardarLatencias();
             
             if (controlArduino != null) {
                 if(controlArduino.arduino != null) controlArduino.arduino.cerrarPuerto();
+            }
+            if (ambitoSesion != null) {
+                ambitoSesion.cerrar(); // Una conexión a medias y lo que quede del puerto
+                ambitoSesion = null;
+            }
+            if (controlArduino != null) {
                 if(controlArduino.controlXbox != null) controlArduino.controlXbox.shutdown();
             }
             
@@ -403,6 +608,7 @@ public class Jugar extends JFrame {
          */
         public void reset() {
             salir = false;
+            cuadros.start();
             // Al volver al menú y luego iniciar el juego, los servos se centran
             // y las conexiones se re-establecen.
             centrarServos(); 
@@ -420,93 +626,169 @@ public class Jugar extends JFrame {
          * Ahora solo se usa para regresar a las instrucciones después de un mensaje.
          */
         public void finJuego() { // Se eliminó el parámetro 'ganado'
-            if (gamepadTimer != null) gamepadTimer.cancel();
+            detenerBucleDeControl();
             
             // Mensaje genérico de finalización.
             lblEstado.setText("Operación finalizada. Volviendo a instrucciones...");
             
-            Timer t = new Timer();
-            t.schedule(new TimerTask() {
-                public void run() {
-                    SwingUtilities.invokeLater(() -> mostrarInstrucciones());
-                }
-            }, 3000); // Espera 3 segundos antes de volver a las instrucciones
+            // Temporizador de Swing de un solo disparo: no deja un hilo vivo entre sesiones
+            javax.swing.Timer t = new javax.swing.Timer(3000, e -> mostrarInstrucciones());
+            t.setRepeats(false);
+            t.start(); // Espera 3 segundos antes de volver a las instrucciones
+        }
+
+        /**
+         * Alterna los sticks entre pasos fijos (digital), velocidad proporcional a la inclinación
+         * y movimiento de la punta en X/Y/Z (cartesiano, con cinemática inversa en cada ciclo).
+         */
+        private void alternarModoEjes() {
+            if (controlArduino == null) return;
+            ControlArduino.ModoEjes modo = switch (controlArduino.getModoEjes()) {
+                case DIGITAL -> ControlArduino.ModoEjes.PROPORCIONAL;
+                case PROPORCIONAL -> ControlArduino.ModoEjes.CARTESIANO;
+                case CARTESIANO -> ControlArduino.ModoEjes.DIGITAL;
+            };
+            controlArduino.setModoEjes(modo);
+            btnModo.setText(switch (modo) {
+                case DIGITAL -> "Sticks: digital (F4)";
+                case PROPORCIONAL -> "Sticks: proporcional (F4)";
+                case CARTESIANO -> "Sticks: cartesiano (F4)";
+            });
+        }
+
+        /**
+         * Empieza a grabar los movimientos del brazo o termina la grabación en curso.
+         */
+        private void alternarGrabacion() {
+            if (grabador != null) {
+                long registros = grabador.getTotal();
+                detenerGrabacion();
+                lblEstado.setText("Grabación guardada: " + registros + " movimientos");
+                return;
+            }
+            detenerReproduccion();
+            try {
+                grabador = new GrabadorMovimientos(modelo);
+                btnGrabar.setText("Detener (F5)");
+                lblEstado.setText("Grabando movimientos...");
+            } catch (java.io.IOException ex) {
+                lblEstado.setText("No se pudo grabar: " + ex.getMessage());
+            }
+        }
+
+        private void detenerGrabacion() {
+            if (grabador == null) return;
+            grabador.detener();
+            grabador = null;
+            btnGrabar.setText("Grabar (F5)");
+        }
+
+        /**
+         * Reproduce en ciclo la última grabación (a la escala de velocidad actual) o la detiene.
+         */
+        private void alternarReproduccion() {
+            if (reproductor != null && reproductor.isReproduciendo()) {
+                detenerReproduccion();
+                lblEstado.setText("Reproducción detenida");
+                return;
+            }
+            if (controlArduino == null || !controlArduino.arduino.getisOpen()) {
+                lblEstado.setText("Sin conexión con el Arduino para reproducir");
+                return;
+            }
+            detenerGrabacion();
+            try {
+                reproductor = new ReproductorMovimientos();
+                reproductor.iniciar(controlArduino, controlArduino.getEscalaVelocidad(), true);
+                btnReproducir.setText("Detener (F6)");
+                lblEstado.setText(String.format("Reproduciendo %d movimientos (x%.2f)...",
+                        reproductor.getTotal(), controlArduino.getEscalaVelocidad()));
+            } catch (java.io.IOException ex) {
+                reproductor = null;
+                lblEstado.setText("No se pudo reproducir: " + ex.getMessage());
+            }
+        }
+
+        private void detenerReproduccion() {
+            if (reproductor == null) return;
+            reproductor.detener();
+            reproductor = null;
+            btnReproducir.setText("Reproducir (F6)");
+        }
+
+        /**
+         * Muestra u oculta las gráficas de telemetría del ciclo de control.
+         */
+        private void alternarTelemetria() {
+            if (panelTelemetria.isVisible()) panelTelemetria.detener();
+            else panelTelemetria.iniciar();
+        }
+
+        /**
+         * Muestra u oculta la superposición con los histogramas de latencia.
+         */
+        private void alternarLatencias() {
+            mostrarLatencias = !mostrarLatencias;
+            if (mostrarLatencias) refrescoLatencias.start();
+            else refrescoLatencias.stop();
+            repaint();
+        }
+
+        /**
+         * Guarda en archivo los histogramas de la sesión, si hubo alguna medición.
+         */
+        public void guardarLatencias() {
+            if (controlArduino == null) return;
+            MedidorLatencia medidor = controlArduino.getMedidor();
+            if (medidor.get(MedidorLatencia.Etapa.CICLO).getTotal() > 0) {
+                medidor.guardar();
+                medidor.reiniciar(); // Evita guardar dos veces la misma sesión
+            }
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            super.paintComponent(g);
-            dibujarBrazoRobotico(g);
+            dibujarBrazoRobotico(g); // Pinta también el fondo, en lugar de super.paintComponent
+            if (mostrarLatencias) dibujarLatencias(g);
         }
 
         /**
-         * Dibuja el brazo robótico en el panel.
+         * Dibuja los percentiles de cada tramo de la ruta control -> Arduino.
+         * @param g Objeto Graphics para dibujar.
+         */
+        private void dibujarLatencias(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setColor(FONDO_LATENCIAS);
+            g2.fillRoundRect(20, 70, 700, 70 + 20 * MedidorLatencia.Etapa.values().length, 12, 12);
+            g2.setColor(Color.WHITE);
+            g2.setFont(FUENTE_LATENCIAS);
+            if (controlArduino == null) {
+                g2.drawString("Sin mediciones", 35, 95);
+                return;
+            }
+            MedidorLatencia medidor = controlArduino.getMedidor();
+            int y = 95;
+            for (MedidorLatencia.Etapa etapa : MedidorLatencia.Etapa.values()) {
+                g2.drawString(medidor.get(etapa).resumen(), 35, y);
+                y += 20;
+            }
+            if (bucleControl != null) {
+                g2.drawString(bucleControl.getPeriodos().resumen(), 35, y);
+                g2.drawString(bucleControl.getJitter().resumen() + "  saltados=" + bucleControl.getSaltados(), 35, y + 20);
+            }
+            if (reproductor != null) {
+                g2.drawString(reproductor.getErrores().resumen() + "  vueltas=" + reproductor.getVueltas(), 35, y + 40);
+            }
+        }
+
+        /**
+         * Dibuja el fondo, la base (desde la capa guardada) y el brazo robótico en el panel.
          * @param g Objeto Graphics para dibujar.
          */
         private void dibujarBrazoRobotico(Graphics g) {
-            Graphics2D g2 = (Graphics2D) g;
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            int cx = getWidth() / 2;
-            int cy = getHeight() / 2 + 100;
-
-            GradientPaint baseGp = new GradientPaint(cx - 60, cy - 20, new Color(200, 200, 210), cx - 60, cy + 20, new Color(120, 120, 130));
-            g2.setPaint(baseGp);
-            g2.fillOval(cx - 60, cy - 20, 120, 40);
-            g2.setPaint(null);
-
-            double base = Math.toRadians(angulos[0] - 90);
-            double hombro = Math.toRadians(angulos[1] - 90);
-            double codo = Math.toRadians(angulos[2] - 90);
-            double l1 = 100, l2 = 100;
-
-            double x1 = l1 * Math.cos(hombro) * Math.cos(base);
-            double y1 = l1 * Math.sin(hombro);
-            double z1 = l1 * Math.cos(hombro) * Math.sin(base);
-
-            double hombroTotal = hombro + codo;
-            double x2 = x1 + l2 * Math.cos(hombroTotal) * Math.cos(base);
-            double y2 = y1 + l2 * Math.sin(hombroTotal);
-            double z2 = z1 + l2 * Math.cos(hombroTotal) * Math.sin(base);
-
-            Point p0 = project(0, 0, 0, cx, cy);
-            Point p1 = project(x1, y1, z1, cx, cy);
-            Point p2 = project(x2, y2, z2, cx, cy);
-
-            g2.setStroke(new BasicStroke(12, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            GradientPaint seg1 = new GradientPaint(p0.x, p0.y, new Color(255, 138, 128), p1.x, p1.y, new Color(244, 67, 54));
-            g2.setPaint(seg1);
-            g2.drawLine(p0.x, p0.y, p1.x, p1.y);
-            GradientPaint seg2 = new GradientPaint(p1.x, p1.y, new Color(165, 214, 167), p2.x, p2.y, new Color(76, 175, 80));
-            g2.setPaint(seg2);
-            g2.drawLine(p1.x, p1.y, p2.x, p2.y);
-
-            double garra = Math.toRadians(angulos[3] - 90) / 2.0;
-            int claw = 30;
-            Point g1 = project(
-                    x2 + claw * Math.cos(hombroTotal + garra) * Math.cos(base),
-                    y2 + claw * Math.sin(hombroTotal + garra),
-                    z2 + claw * Math.cos(hombroTotal + garra) * Math.sin(base), cx, cy);
-            Point g2p = project(
-                    x2 + claw * Math.cos(hombroTotal - garra) * Math.cos(base),
-                    y2 + claw * Math.sin(hombroTotal - garra),
-                    z2 + claw * Math.cos(hombroTotal - garra) * Math.sin(base), cx, cy);
-            GradientPaint clawPaint = new GradientPaint(p2.x, p2.y, new Color(144, 202, 249), g1.x, g1.y, new Color(33, 150, 243));
-            g2.setPaint(clawPaint);
-            g2.drawLine(p2.x, p2.y, g1.x, g1.y);
-            g2.drawLine(p2.x, p2.y, g2p.x, g2p.y);
-            g2.setPaint(null);
-
-            g2.setColor(Color.DARK_GRAY);
-            g2.fillOval(p0.x - 6, p0.y - 6, 12, 12);
-            g2.fillOval(p1.x - 6, p1.y - 6, 12, 12);
-            g2.fillOval(p2.x - 6, p2.y - 6, 12, 12);
-        }
-
-        private Point project(double x, double y, double z, int cx, int cy) {
-            double isoX = (x - z) * 0.707;
-            double isoY = y + (x + z) * 0.408;
-            return new Point((int) (cx + isoX), (int) (cy - isoY));
+            // Una sola lectura del modelo por cuadro, sin mezclar versiones
+            modelo.getEstado().copiarAngulos(angulosDibujo);
+            dibujo.dibujarEnPanel(this, (Graphics2D) g, angulosDibujo, getWidth() / 2, getHeight() / 2 + 100);
         }
     }
 }
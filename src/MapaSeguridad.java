@@ -0,0 +1,298 @@
+import java.io.IOException; // Errores al leer o escribir el archivo
+import java.nio.ByteBuffer; // Formato binario del archivo
+import java.nio.file.Files; // Lectura y escritura del archivo
+import java.nio.file.Path; // Ruta del archivo
+import java.nio.file.StandardCopyOption; // Reemplazo del archivo al terminar de escribirlo
+import java.util.concurrent.ForkJoinPool; // Calculo en paralelo de las rejillas
+import java.util.concurrent.RecursiveAction; // Division del calculo por renglones
+
+// Mapa precalculado de lo que el brazo no debe hacer: chocar con la mesa o con su propia
+// base. Se guarda en dos rejillas de bits:
+//   - Articulaciones: una casilla por grado de hombro y codo (181 x 181) que marca las
+//     configuraciones prohibidas. La base gira alrededor del eje vertical, igual que la
+//     mesa y el cilindro de la base, asi que no cambia ninguna distancia y no hace falta
+//     repetir la rejilla por cada angulo de la base.
+//   - Espacio: voxeles cubicos alrededor del hombro que marcan los puntos que la punta
+//     alcanza con alguna configuracion permitida. El modo cartesiano descarta un destino
+//     fuera de ellos sin resolver la cinematica inversa.
+// Las dos rejillas se calculan en paralelo (fork/join, un renglon por tarea; cada renglon
+// ocupa palabras propias, asi que las tareas no se pisan) y se guardan en
+// ~/.brazokraken/seguridad.bin. Al arrancar se lee el archivo si es de la misma geometria;
+// si no, se recalcula y se vuelve a guardar. Consultar cualquiera de las dos es O(1).
+//
+// Geometria, en las unidades de los eslabones y con el origen en el hombro (ver Cinematica):
+// la mesa esta ALTURA_HOMBRO abajo del hombro; la base es un cilindro de RADIO_BASE desde la
+// mesa hasta ALTO_SOPORTE abajo del hombro; la pinza sigue LARGO_PINZA al frente del codo.
+// Cada eslabon se muestrea a cada unidad y ningun punto puede quedar a menos de MARGEN de un
+// obstaculo (medio grosor del eslabon y holgura). El codo solo se dobla 90 grados a cada
+// lado, asi que el antebrazo no alcanza al brazo: el unico choque consigo mismo es con la
+// base. Si cambia alguna de estas medidas hay que subir VERSION para que se recalcule.
+//
+// Formato del archivo (big endian):
+//   magia "BKMS" (4) | version (4) | l1, l2 (8 c/u) | lado del voxel (8) |
+//   voxeles en x, y, z (4 c/u) | palabras de articulaciones (4) | palabras del espacio (4) |
+//   bits de articulaciones (8 c/u) | bits del espacio (8 c/u)
+public final class MapaSeguridad {
+    public static final Path ARCHIVO = CarpetaDatos.RUTA.resolve("seguridad.bin");
+    public static final int MAGIA = 0x424B4D53; // "BKMS"
+    public static final int VERSION = 1;
+    public static final int CABECERA = 52;
+
+    // Geometria del brazo y su entorno, relativa a los eslabones por defecto (100 y 100)
+    public static final double ALTURA_HOMBRO = 80; // Del hombro a la mesa
+    public static final double ALTO_SOPORTE = 25; // Del hombro a la parte de arriba de la base
+    public static final double RADIO_BASE = 60;
+    public static final double LARGO_PINZA = 30;
+    public static final double MARGEN = 8;
+    public static final int VOXELES_POR_ALCANCE = 50; // El lado del voxel es alcance / 50
+
+    private static final int ANGULOS = 181;
+    private static final int PALABRAS_ANGULO = (ANGULOS + 63) >>> 6; // Cada renglon de hombro en palabras propias
+    private static final double[] CENTRO = {90, 90, 90};
+
+    private final Cinematica cinematica;
+    private final long[] prohibidas; // [hombro][codo], bit en 1 = configuracion prohibida
+    private final double lado; // Lado del voxel
+    private final double origenY; // Altura de la cara de abajo de la rejilla (la mesa)
+    private final int nx, ny, nz;
+    private final int palabrasZ; // Cada renglon (x, y) del espacio en palabras propias
+    private final long[] espacio; // [x][y][z], bit en 1 = la punta alcanza el voxel sin chocar
+
+    private MapaSeguridad(Cinematica cinematica, long[] prohibidas, double lado, int nx, int ny, int nz, long[] espacio) {
+        this.cinematica = cinematica;
+        this.prohibidas = prohibidas;
+        this.lado = lado;
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+        this.palabrasZ = (nz + 63) >>> 6;
+        this.origenY = -ALTURA_HOMBRO * escala(cinematica);
+        this.espacio = espacio;
+    }
+
+    // Lee el mapa de la geometria dada del archivo por defecto, o lo calcula y lo guarda
+    public static MapaSeguridad cargar(Cinematica cinematica) {
+        return cargar(cinematica, ARCHIVO);
+    }
+
+    public static MapaSeguridad cargar(Cinematica cinematica, Path archivo) {
+        if(Files.exists(archivo)) {
+            try {
+                MapaSeguridad mapa = leer(cinematica, archivo);
+                if(mapa != null) return mapa;
+                System.out.println("El mapa de seguridad de " + archivo + " es de otra geometria, se recalcula");
+            } catch(IOException e) {
+                System.out.println("No se pudo leer " + archivo + ": " + e.getMessage());
+            }
+        }
+        long inicio = System.nanoTime();
+        MapaSeguridad mapa = calcular(cinematica);
+        System.out.printf("Mapa de seguridad calculado en %.0f ms%n", (System.nanoTime() - inicio) / 1e6);
+        try {
+            mapa.guardar(archivo);
+        } catch(IOException e) {
+            System.out.println("No se pudo guardar " + archivo + ": " + e.getMessage());
+        }
+        return mapa;
+    }
+
+    // Funciones de consulta, O(1) y sin objetos: las usa el ciclo de control
+    // True si la configuracion (angulos de servo) no choca; la base no cambia el resultado
+    public boolean permitida(double hombro, double codo) {
+        int h = (int) Math.round(hombro), c = (int) Math.round(codo);
+        if(h < 0 || h >= ANGULOS || c < 0 || c >= ANGULOS) return false;
+        return (prohibidas[h * PALABRAS_ANGULO + (c >>> 6)] & (1L << c)) == 0;
+    }
+
+    // True si el voxel del punto lo alcanza la punta con alguna configuracion permitida
+    public boolean alcanzable(double x, double y, double z) {
+        double alcance = (nx - 1) * lado / 2;
+        int i = (int) Math.floor((x + alcance) / lado + 0.5);
+        int j = (int) Math.floor((y - origenY) / lado + 0.5);
+        int k = (int) Math.floor((z + alcance) / lado + 0.5);
+        if(i < 0 || i >= nx || j < 0 || j >= ny || k < 0 || k >= nz) return false;
+        return (espacio[(i * ny + j) * palabrasZ + (k >>> 6)] & (1L << k)) != 0;
+    }
+
+    public Cinematica getCinematica() {
+        return cinematica;
+    }
+
+    // True si el mapa se calculo para estos largos de eslabon
+    public boolean esDe(Cinematica otra) {
+        return otra.getL1() == cinematica.getL1() && otra.getL2() == cinematica.getL2();
+    }
+
+    public double getLadoVoxel() {
+        return lado;
+    }
+
+    // Configuraciones prohibidas de las 181 x 181
+    public int getProhibidas() {
+        int total = 0;
+        for(long palabra : prohibidas) total += Long.bitCount(palabra);
+        return total;
+    }
+
+    public int getVoxelesAlcanzables() {
+        int total = 0;
+        for(long palabra : espacio) total += Long.bitCount(palabra);
+        return total;
+    }
+
+    // Funciones de calculo
+    public static MapaSeguridad calcular(Cinematica cinematica) {
+        double e = escala(cinematica);
+        long[] prohibidas = new long[ANGULOS * PALABRAS_ANGULO];
+        ForkJoinPool.commonPool().invoke(new Renglones(0, ANGULOS, h -> marcarHombro(cinematica, e, h, prohibidas)));
+
+        double alcance = cinematica.getAlcance();
+        double lado = alcance / VOXELES_POR_ALCANCE;
+        int nx = 2 * VOXELES_POR_ALCANCE + 1, nz = nx;
+        int ny = (int) Math.ceil((alcance + ALTURA_HOMBRO * e) / lado) + 1;
+        long[] espacio = new long[nx * ny * ((nz + 63) >>> 6)];
+        MapaSeguridad mapa = new MapaSeguridad(cinematica, prohibidas, lado, nx, ny, nz, espacio);
+        ForkJoinPool.commonPool().invoke(new Renglones(0, nx, mapa::marcarPlano));
+        return mapa;
+    }
+
+    // Marca las configuraciones prohibidas con este angulo de hombro
+    private static void marcarHombro(Cinematica cinematica, double e, int h, long[] prohibidas) {
+        double l1 = cinematica.getL1(), l2 = cinematica.getL2();
+        double th = Math.toRadians(h - 90);
+        double cosH = Math.cos(th), senH = Math.sin(th);
+        boolean brazoChoca = segmentoChoca(0, 0, cosH, senH, l1, e);
+        for(int c = 0; c < ANGULOS; c++) {
+            boolean choca = brazoChoca;
+            if(!choca) {
+                double thc = th + Math.toRadians(c - 90);
+                choca = segmentoChoca(l1 * cosH, l1 * senH, Math.cos(thc), Math.sin(thc), l2 + LARGO_PINZA * e, e);
+            }
+            if(choca) prohibidas[h * PALABRAS_ANGULO + (c >>> 6)] |= 1L << c;
+        }
+    }
+
+    // Revisa los puntos del segmento que sale de (r0, y0) en la direccion (dr, dy), en el
+    // plano de la base (r es la distancia horizontal al eje de la base, con signo)
+    private static boolean segmentoChoca(double r0, double y0, double dr, double dy, double largo, double e) {
+        double mesa = -ALTURA_HOMBRO * e + MARGEN * e;
+        double techoBase = -ALTO_SOPORTE * e + MARGEN * e;
+        double radio = (RADIO_BASE + MARGEN) * e;
+        int pasos = (int) Math.ceil(largo / e); // Un punto por unidad (por defecto)
+        for(int i = 0; i <= pasos; i++) {
+            double t = largo * i / pasos;
+            double r = r0 + dr * t, y = y0 + dy * t;
+            if(y < mesa) return true;
+            if(y < techoBase && Math.abs(r) < radio) return true;
+        }
+        return false;
+    }
+
+    // Marca los voxeles alcanzables del plano x = i
+    private void marcarPlano(int i) {
+        double alcance = (nx - 1) * lado / 2;
+        double[] angulos = new double[3];
+        double x = i * lado - alcance;
+        for(int j = 0; j < ny; j++) {
+            double y = origenY + j * lado;
+            int renglon = (i * ny + j) * palabrasZ;
+            for(int k = 0; k < nz; k++) {
+                double z = k * lado - alcance;
+                if(cinematica.inversa(x, y, z, CENTRO, angulos, this)) {
+                    espacio[renglon + (k >>> 6)] |= 1L << k;
+                }
+            }
+        }
+    }
+
+    // Las medidas del entorno son para eslabones de 100 y 100; se escalan con el alcance
+    private static double escala(Cinematica cinematica) {
+        return cinematica.getAlcance() / (Cinematica.LARGO_BRAZO + Cinematica.LARGO_ANTEBRAZO);
+    }
+
+    private interface Renglon {
+        void marcar(int indice);
+    }
+
+    // Reparte los renglones [desde, hasta) entre los hilos del pool
+    private static final class Renglones extends RecursiveAction {
+        private static final int MINIMO = 4; // Renglones que se calculan sin dividir mas
+
+        private final int desde;
+        private final int hasta;
+        private final Renglon renglon;
+
+        Renglones(int desde, int hasta, Renglon renglon) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.renglon = renglon;
+        }
+
+        @Override
+        protected void compute() {
+            if(hasta - desde <= MINIMO) {
+                for(int i = desde; i < hasta; i++) renglon.marcar(i);
+                return;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            invokeAll(new Renglones(desde, mitad, renglon), new Renglones(mitad, hasta, renglon));
+        }
+    }
+
+    // Funciones del archivo
+    public void guardar(Path archivo) throws IOException {
+        ByteBuffer datos = ByteBuffer.allocate(CABECERA + 8 * (prohibidas.length + espacio.length));
+        datos.putInt(MAGIA).putInt(VERSION);
+        datos.putDouble(cinematica.getL1()).putDouble(cinematica.getL2()).putDouble(lado);
+        datos.putInt(nx).putInt(ny).putInt(nz);
+        datos.putInt(prohibidas.length).putInt(espacio.length);
+        for(long palabra : prohibidas) datos.putLong(palabra);
+        for(long palabra : espacio) datos.putLong(palabra);
+
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if(carpeta != null) Files.createDirectories(carpeta);
+        // Se escribe aparte y se reemplaza al final, asi nunca queda un mapa a medias
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Files.write(temporal, datos.array());
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Regresa null si el archivo es de otros largos de eslabon u otra version de la geometria
+    private static MapaSeguridad leer(Cinematica cinematica, Path archivo) throws IOException {
+        ByteBuffer datos = ByteBuffer.wrap(Files.readAllBytes(archivo));
+        if(datos.remaining() < CABECERA || datos.getInt() != MAGIA) {
+            throw new IOException("No es un mapa de seguridad");
+        }
+        if(datos.getInt() != VERSION) return null;
+        double l1 = datos.getDouble(), l2 = datos.getDouble(), lado = datos.getDouble();
+        if(l1 != cinematica.getL1() || l2 != cinematica.getL2()) return null;
+        int nx = datos.getInt(), ny = datos.getInt(), nz = datos.getInt();
+        int palabrasAngulos = datos.getInt(), palabrasEspacio = datos.getInt();
+        if(palabrasAngulos != ANGULOS * PALABRAS_ANGULO || nx <= 0 || ny <= 0 || nz <= 0
+                || palabrasEspacio != nx * ny * ((nz + 63) >>> 6)
+                || datos.remaining() != 8L * (palabrasAngulos + palabrasEspacio)) {
+            throw new IOException("Mapa de seguridad incompleto");
+        }
+        long[] prohibidas = new long[palabrasAngulos];
+        long[] espacio = new long[palabrasEspacio];
+        datos.asLongBuffer().get(prohibidas).get(espacio);
+        return new MapaSeguridad(cinematica, prohibidas, lado, nx, ny, nz, espacio);
+    }
+
+    // Calcula el mapa fuera de linea: java MapaSeguridad [archivo]
+    public static void main(String[] args) throws IOException {
+        Path archivo = args.length > 0 ? Path.of(args[0]) : ARCHIVO;
+        long inicio = System.nanoTime();
+        MapaSeguridad mapa = calcular(new Cinematica());
+        mapa.guardar(archivo);
+        System.out.printf("%d configuraciones prohibidas de %d, %d voxeles alcanzables; %.0f ms -> %s%n",
+                mapa.getProhibidas(), ANGULOS * ANGULOS, mapa.getVoxelesAlcanzables(),
+                (System.nanoTime() - inicio) / 1e6, archivo);
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del MapaSeguridad
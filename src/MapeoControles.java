@@ -0,0 +1,319 @@
+import java.io.IOException; // Errores al leer el archivo
+import java.io.InputStream; // Lectura del archivo de propiedades
+import java.io.StringReader; // Lectura del mapeo por defecto
+import java.nio.file.Files; // Utilizado para saber si existe el archivo
+import java.nio.file.Path; // Ruta del archivo
+import java.util.ArrayList; // Descripciones para la pantalla de instrucciones
+import java.util.Arrays; // Relleno de las tablas
+import java.util.List; // Descripciones para la pantalla de instrucciones
+import java.util.Properties; // Formato del archivo (clave=valor)
+
+// Mapeo declarativo del mando al brazo. Se lee de un archivo de propiedades:
+//
+//   boton.<Boton> = pulso <comando> | centrar | paro | pose <s0> <s1> <s2> <s3> | velocidad+ | velocidad-
+//                   | grabar | reproducir
+//   eje.<Eje>     = servo <n> [invertido] | gatillo <al presionar> <al soltar>
+//
+// y se compila una sola vez en tablas planas indexadas por el ordinal de ControlXbox.Boton
+// y ControlXbox.Eje. ControlArduino recorre solo las entradas asignadas en cada ciclo, sin
+// crear objetos, asi que agregar asignaciones no encarece el resto del ciclo.
+public final class MapeoControles {
+    public static final String ARCHIVO = "mapeo.properties";
+    private static final Path[] ARCHIVOS = {CarpetaDatos.RUTA.resolve(ARCHIVO), Path.of(ARCHIVO)}; // En orden de preferencia
+
+    // Acciones posibles de cada entrada de la tabla
+    public enum Accion {
+        NINGUNA,
+        PULSO,           // Boton: manda un comando al presionar
+        CENTRAR,         // Boton: todos los servos al centro
+        PARO,            // Boton: paro de emergencia (se suelta volviendo a presionar)
+        POSE,            // Boton: lleva el brazo a una pose guardada
+        VELOCIDAD_MAS,   // Boton: sube la escala de velocidad
+        VELOCIDAD_MENOS, // Boton: baja la escala de velocidad
+        GRABAR,          // Boton: empieza o termina la grabacion de movimientos
+        REPRODUCIR,      // Boton: reproduce en ciclo la ultima grabacion, o la detiene
+        SERVO,           // Eje: mueve un servo (digital o proporcional)
+        GATILLO          // Eje: un comando al pasar el umbral y otro al soltar
+    }
+
+    // Mapeo por defecto, el mismo que trae el archivo mapeo.properties del proyecto
+    private static final String POR_DEFECTO = String.join("\n",
+            "eje.LEFT_X = servo 0",
+            "eje.LEFT_Y = servo 1 invertido",
+            "eje.RIGHT_Y = servo 2 invertido",
+            "eje.LEFT_TRIGGER = gatillo L S",
+            "eje.RIGHT_TRIGGER = gatillo R S",
+            "boton.LB = pulso q",
+            "boton.RB = pulso w",
+            "boton.START = centrar",
+            "boton.BACK = paro",
+            "boton.A = pose 90 135 45 90",
+            "boton.B = pose 90 120 60 90",
+            "boton.DPAD_UP = velocidad+",
+            "boton.DPAD_DOWN = velocidad-",
+            "boton.X = grabar",
+            "boton.Y = reproducir");
+
+    private static final String[] NOMBRES_SERVOS = {"Base", "Hombro", "Codo", "Pinza"};
+
+    // Tablas de botones, indexadas por ControlXbox.Boton.ordinal()
+    final Accion[] accionBoton = new Accion[ControlXbox.Boton.values().length];
+    final char[] comandoBoton = new char[accionBoton.length];
+    final int[][] poseBoton = new int[accionBoton.length][];
+    final int[] botones; // Ordinales de los botones asignados, lo unico que se recorre
+
+    // Tablas de ejes, indexadas por ControlXbox.Eje.ordinal()
+    final Accion[] accionEje = new Accion[ControlXbox.Eje.values().length];
+    final int[] servoEje = new int[accionEje.length];
+    final float[] signoEje = new float[accionEje.length];
+    final char[] presionarEje = new char[accionEje.length];
+    final char[] soltarEje = new char[accionEje.length];
+    final int[] ejes; // Ordinales de los ejes asignados
+
+    private final List<String[]> descripciones = new ArrayList<>();
+
+    // Compila el mapeo a partir de las propiedades ya leidas
+    public MapeoControles(Properties propiedades) {
+        Arrays.fill(accionBoton, Accion.NINGUNA);
+        Arrays.fill(accionEje, Accion.NINGUNA);
+        int totalBotones = 0;
+        int totalEjes = 0;
+        for(ControlXbox.Eje e : ControlXbox.Eje.values()) {
+            String valor = propiedades.getProperty("eje." + e.name());
+            if(valor != null && compilarEje(e, valor.trim().split("\\s+"))) totalEjes++;
+        }
+        for(ControlXbox.Boton b : ControlXbox.Boton.values()) {
+            String valor = propiedades.getProperty("boton." + b.name());
+            if(valor != null && compilarBoton(b, valor.trim().split("\\s+"))) totalBotones++;
+        }
+        for(String clave : propiedades.stringPropertyNames()) {
+            if(!clave.matches("(boton|eje)\\.\\w+") || !existe(clave)) {
+                throw new IllegalArgumentException("Entrada desconocida en el mapeo: " + clave);
+            }
+        }
+
+        this.botones = new int[totalBotones];
+        this.ejes = new int[totalEjes];
+        int i = 0;
+        for(int b = 0; b < accionBoton.length; b++) {
+            if(accionBoton[b] != Accion.NINGUNA) botones[i++] = b;
+        }
+        i = 0;
+        for(int e = 0; e < accionEje.length; e++) {
+            if(accionEje[e] != Accion.NINGUNA) ejes[i++] = e;
+        }
+    }
+
+    // Lee el mapeo del usuario (~/.brazokraken), si no el del proyecto y si no el de por defecto
+    public static MapeoControles cargar() {
+        for(Path archivo : ARCHIVOS) {
+            if(!Files.exists(archivo)) continue;
+            try {
+                return cargar(archivo);
+            } catch(IOException | IllegalArgumentException e) {
+                System.out.println("No se pudo usar el mapeo " + archivo + ": " + e.getMessage());
+            }
+        }
+        return porDefecto();
+    }
+
+    // Lee un archivo de mapeo en particular
+    public static MapeoControles cargar(Path archivo) throws IOException {
+        try(InputStream in = Files.newInputStream(archivo)) {
+            Properties p = new Properties();
+            p.load(in);
+            return new MapeoControles(p);
+        }
+    }
+
+    // Archivo que usaria cargar(), o null si se usa el mapeo por defecto
+    public static Path buscarArchivo() {
+        for(Path archivo : ARCHIVOS) {
+            if(Files.exists(archivo)) return archivo;
+        }
+        return null;
+    }
+
+    public static MapeoControles porDefecto() {
+        Properties p = new Properties();
+        try {
+            p.load(new StringReader(POR_DEFECTO));
+        } catch(IOException e) {
+            throw new IllegalStateException(e); // No pasa con un StringReader
+        }
+        return new MapeoControles(p);
+    }
+
+    // Pares (control, descripcion) en el orden de los enums, para la pantalla de instrucciones
+    public List<String[]> getDescripciones() {
+        return descripciones;
+    }
+
+    // Funciones de compilacion
+    private boolean compilarBoton(ControlXbox.Boton boton, String[] partes) {
+        int b = boton.ordinal();
+        String descripcion;
+        switch(partes[0].toLowerCase()) {
+            case "pulso" -> {
+                exigir(partes, 2, boton.name());
+                accionBoton[b] = Accion.PULSO;
+                comandoBoton[b] = comando(partes[1], boton.name());
+                descripcion = "Comando '" + comandoBoton[b] + "'" + nombreComando(comandoBoton[b]);
+            }
+            case "centrar" -> {
+                accionBoton[b] = Accion.CENTRAR;
+                descripcion = "Centrar servos";
+            }
+            case "paro" -> {
+                accionBoton[b] = Accion.PARO;
+                descripcion = "Paro de emergencia";
+            }
+            case "pose" -> {
+                exigir(partes, 1 + EstadoBrazo.SERVOS, boton.name());
+                int[] pose = new int[EstadoBrazo.SERVOS];
+                for(int s = 0; s < pose.length; s++) {
+                    pose[s] = angulo(partes[1 + s], boton.name());
+                }
+                accionBoton[b] = Accion.POSE;
+                poseBoton[b] = pose;
+                descripcion = "Pose " + Arrays.toString(pose);
+            }
+            case "velocidad+" -> {
+                accionBoton[b] = Accion.VELOCIDAD_MAS;
+                descripcion = "Velocidad +";
+            }
+            case "velocidad-" -> {
+                accionBoton[b] = Accion.VELOCIDAD_MENOS;
+                descripcion = "Velocidad -";
+            }
+            case "grabar" -> {
+                accionBoton[b] = Accion.GRABAR;
+                descripcion = "Grabar movimientos";
+            }
+            case "reproducir" -> {
+                accionBoton[b] = Accion.REPRODUCIR;
+                descripcion = "Reproducir grabacion";
+            }
+            case "ninguna" -> {
+                return false;
+            }
+            default -> throw new IllegalArgumentException("Accion desconocida para boton." + boton.name() + ": " + partes[0]);
+        }
+        descripciones.add(new String[] {nombre(boton), descripcion});
+        return true;
+    }
+
+    private boolean compilarEje(ControlXbox.Eje eje, String[] partes) {
+        int e = eje.ordinal();
+        String descripcion;
+        switch(partes[0].toLowerCase()) {
+            case "servo" -> {
+                exigir(partes, 2, eje.name());
+                int servo = numero(partes[1], eje.name());
+                if(servo < 0 || servo >= EstadoBrazo.SERVOS) {
+                    throw new IllegalArgumentException("Servo fuera de rango en eje." + eje.name() + ": " + servo);
+                }
+                boolean invertido = partes.length > 2 && partes[2].equalsIgnoreCase("invertido");
+                accionEje[e] = Accion.SERVO;
+                servoEje[e] = servo;
+                signoEje[e] = invertido ? -1f : 1f;
+                descripcion = NOMBRES_SERVOS[servo];
+            }
+            case "gatillo" -> {
+                exigir(partes, 3, eje.name());
+                accionEje[e] = Accion.GATILLO;
+                presionarEje[e] = comando(partes[1], eje.name());
+                soltarEje[e] = comando(partes[2], eje.name());
+                descripcion = "Comando '" + presionarEje[e] + "'" + nombreComando(presionarEje[e]);
+            }
+            case "ninguna" -> {
+                return false;
+            }
+            default -> throw new IllegalArgumentException("Accion desconocida para eje." + eje.name() + ": " + partes[0]);
+        }
+        descripciones.add(new String[] {nombre(eje), descripcion});
+        return true;
+    }
+
+    // Funciones auxiliares
+    private static boolean existe(String clave) {
+        String nombre = clave.substring(clave.indexOf('.') + 1);
+        try {
+            if(clave.startsWith("boton.")) ControlXbox.Boton.valueOf(nombre);
+            else ControlXbox.Eje.valueOf(nombre);
+            return true;
+        } catch(IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void exigir(String[] partes, int minimo, String entrada) {
+        if(partes.length < minimo) {
+            throw new IllegalArgumentException("Faltan argumentos en " + entrada + ": " + String.join(" ", partes));
+        }
+    }
+
+    private static char comando(String texto, String entrada) {
+        if(texto.length() != 1) {
+            throw new IllegalArgumentException("El comando de " + entrada + " debe ser un caracter: " + texto);
+        }
+        return texto.charAt(0);
+    }
+
+    private static int numero(String texto, String entrada) {
+        try {
+            return Integer.parseInt(texto);
+        } catch(NumberFormatException e) {
+            throw new IllegalArgumentException("Numero invalido en " + entrada + ": " + texto);
+        }
+    }
+
+    private static int angulo(String texto, String entrada) {
+        int valor = numero(texto, entrada);
+        if(valor < 0 || valor > 180) {
+            throw new IllegalArgumentException("Angulo fuera de 0-180 en " + entrada + ": " + valor);
+        }
+        return valor;
+    }
+
+    private static String nombreComando(char c) {
+        return switch(c) {
+            case 'q' -> " (cerrar pinza)";
+            case 'w' -> " (abrir pinza)";
+            case 'L' -> " (motor a pasos izquierda)";
+            case 'R' -> " (motor a pasos derecha)";
+            default -> "";
+        };
+    }
+
+    private static String nombre(ControlXbox.Boton boton) {
+        return switch(boton) {
+            case DPAD_UP -> "D-Pad arriba";
+            case DPAD_DOWN -> "D-Pad abajo";
+            case DPAD_LEFT -> "D-Pad izquierda";
+            case DPAD_RIGHT -> "D-Pad derecha";
+            case LEFT_STICK_CLICK -> "Click stick izq";
+            case RIGHT_STICK_CLICK -> "Click stick der";
+            case START -> "Start";
+            case BACK -> "Back";
+            default -> boton.name();
+        };
+    }
+
+    private static String nombre(ControlXbox.Eje eje) {
+        return switch(eje) {
+            case LEFT_X -> "Stick izq X";
+            case LEFT_Y -> "Stick izq Y";
+            case RIGHT_X -> "Stick der X";
+            case RIGHT_Y -> "Stick der Y";
+            case LEFT_TRIGGER -> "LT";
+            case RIGHT_TRIGGER -> "RT";
+        };
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del MapeoControles
@@ -0,0 +1,75 @@
+import java.io.IOException; // Errores al guardar el reporte
+import java.io.PrintWriter; // Escritura del reporte
+import java.nio.file.Files; // Utilizado para crear la carpeta del reporte
+import java.nio.file.Path; // Ruta del reporte
+import java.time.LocalDateTime; // Fecha del reporte
+import java.time.format.DateTimeFormatter; // Nombre del archivo del reporte
+
+// Agrupa los histogramas de cada tramo del camino control -> Arduino
+public class MedidorLatencia {
+    // Tramos que se miden
+    public enum Etapa {
+        LECTURA_CONTROL("Lectura del control"), // Poll de SDL en ControlXbox.actualizarEstado
+        CICLO("Control -> trama"),              // Todo ControlArduino.mandarDatos
+        ENTRADA_CABLE("Entrada -> cable"),      // Lectura del control hasta que los bytes salen al puerto
+        CONFIRMACION("Envio -> OK");            // Trama enviada hasta su confirmacion (modo confiable)
+
+        private final String descripcion;
+
+        Etapa(String descripcion) {
+            this.descripcion = descripcion;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+    }
+
+    private final HistogramaLatencia[] histogramas = new HistogramaLatencia[Etapa.values().length];
+
+    // Constructor
+    public MedidorLatencia() {
+        for(Etapa e : Etapa.values()) {
+            histogramas[e.ordinal()] = new HistogramaLatencia(e.getDescripcion());
+        }
+    }
+
+    // Registra el tiempo desde inicio (System.nanoTime) hasta ahora
+    public void registrarDesde(Etapa etapa, long inicio) {
+        histogramas[etapa.ordinal()].registrar(System.nanoTime() - inicio);
+    }
+
+    public HistogramaLatencia get(Etapa etapa) {
+        return histogramas[etapa.ordinal()];
+    }
+
+    public void reiniciar() {
+        for(HistogramaLatencia h : histogramas) h.reiniciar();
+    }
+
+    // Escribe el resumen de todos los tramos en ~/.brazokraken/latencias-<fecha>.txt
+    public Path guardar() {
+        String fecha = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return guardar(CarpetaDatos.RUTA.resolve("latencias-" + fecha + ".txt"));
+    }
+
+    public Path guardar(Path archivo) {
+        try {
+            Files.createDirectories(archivo.getParent());
+            try(PrintWriter out = new PrintWriter(Files.newBufferedWriter(archivo))) {
+                for(HistogramaLatencia h : histogramas) out.println(h.resumen());
+            }
+            System.out.println("Latencias guardadas en " + archivo);
+            return archivo;
+        } catch(IOException e) {
+            System.out.println("No se pudieron guardar las latencias: " + e.getMessage());
+            return null;
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del MedidorLatencia
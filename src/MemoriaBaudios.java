@@ -0,0 +1,90 @@
+import java.io.IOException; // Errores al leer o escribir el archivo
+import java.io.InputStream; // Lectura del archivo de propiedades
+import java.io.OutputStream; // Escritura del archivo de propiedades
+import java.nio.file.Files; // Utilizado para crear la carpeta y abrir el archivo
+import java.nio.file.Path; // Ruta del archivo
+import java.util.Properties; // Formato del archivo (clave=valor)
+
+// Recuerda la velocidad que funciono para cada puerto, asi las siguientes conexiones
+// no tienen que volver a buscarla. Si la busqueda no logro subir de la velocidad base se
+// guarda solo la hora del intento ("<puerto>.intento"), nunca la velocidad base: un eco
+// ruidoso no deja el puerto fijo en 9600, solo aplaza la siguiente busqueda.
+// Se guarda en ~/.brazokraken/baudios.properties
+public class MemoriaBaudios {
+    private static final String INTENTO = ".intento"; // Sufijo de la hora de la ultima busqueda fallida
+
+    private final Path archivo;
+    private final Properties valores = new Properties();
+
+    // Constructor
+    public MemoriaBaudios() {
+        this(CarpetaDatos.RUTA.resolve("baudios.properties"));
+    }
+
+    public MemoriaBaudios(Path archivo) {
+        this.archivo = archivo;
+        if(Files.exists(archivo)) {
+            try(InputStream in = Files.newInputStream(archivo)) {
+                this.valores.load(in);
+            } catch(IOException e) {
+                System.out.println("No se pudo leer " + archivo + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Regresa la velocidad guardada para el puerto o 0 si no hay ninguna
+    public synchronized int obtener(String identificador) {
+        String valor = this.valores.getProperty(identificador);
+        if(valor == null) return 0;
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch(NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public synchronized void guardar(String identificador, int baudios) {
+        this.valores.setProperty(identificador, Integer.toString(baudios));
+        this.valores.remove(identificador + INTENTO);
+        escribir();
+    }
+
+    public synchronized void olvidar(String identificador) {
+        if(this.valores.remove(identificador) != null) escribir();
+    }
+
+    // Anota que la busqueda no pudo subir de la velocidad base
+    public synchronized void guardarIntento(String identificador, long milisegundos) {
+        this.valores.remove(identificador);
+        this.valores.setProperty(identificador + INTENTO, Long.toString(milisegundos));
+        escribir();
+    }
+
+    // Hora (System.currentTimeMillis) de la ultima busqueda fallida, 0 si no hay
+    public synchronized long obtenerIntento(String identificador) {
+        String valor = this.valores.getProperty(identificador + INTENTO);
+        if(valor == null) return 0;
+        try {
+            return Long.parseLong(valor.trim());
+        } catch(NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void escribir() {
+        try {
+            Files.createDirectories(this.archivo.getParent());
+            try(OutputStream out = Files.newOutputStream(this.archivo)) {
+                this.valores.store(out, "Velocidad confirmada por puerto");
+            }
+        } catch(IOException e) {
+            System.out.println("No se pudo guardar " + this.archivo + ": " + e.getMessage());
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la MemoriaBaudios
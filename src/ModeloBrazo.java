@@ -0,0 +1,60 @@
+import java.util.Arrays; // Copia de la lista de oyentes
+import java.util.concurrent.atomic.AtomicReference; // Foto vigente compartida entre hilos
+
+// Modelo unico del brazo que comparten el ciclo de control (escribe), el envio serie
+// (arma las tramas a partir de la foto publicada) y la vista (dibuja la ultima version).
+// Cada cambio crea una foto inmutable nueva y la publica de un golpe, asi que quien lee
+// nunca ve una mezcla de dos versiones y no necesita candados.
+public class ModeloBrazo {
+    // Avisa de cada foto nueva, se llama en el hilo que publico
+    public interface Oyente {
+        void alCambiar(EstadoBrazo estado);
+    }
+
+    private final AtomicReference<EstadoBrazo> actual = new AtomicReference<>(EstadoBrazo.INICIAL);
+    private volatile Oyente[] oyentes = new Oyente[0]; // Copia al escribir, se recorre sin candados
+
+    public EstadoBrazo getEstado() {
+        return actual.get();
+    }
+
+    // Publica una foto nueva si algo cambio y regresa la foto vigente
+    public EstadoBrazo publicar(int[] angulos, byte motorPasos) {
+        EstadoBrazo anterior;
+        EstadoBrazo nuevo;
+        do {
+            anterior = actual.get();
+            if(anterior.esIgual(angulos, motorPasos)) return anterior;
+            nuevo = new EstadoBrazo(anterior.getVersion() + 1, angulos, motorPasos);
+        } while(!actual.compareAndSet(anterior, nuevo));
+        for(Oyente o : oyentes) {
+            o.alCambiar(nuevo);
+        }
+        return nuevo;
+    }
+
+    // Funciones para los oyentes
+    public synchronized void agregarOyente(Oyente oyente) {
+        Oyente[] nuevos = Arrays.copyOf(oyentes, oyentes.length + 1);
+        nuevos[oyentes.length] = oyente;
+        oyentes = nuevos;
+    }
+
+    public synchronized void quitarOyente(Oyente oyente) {
+        for(int i = 0; i < oyentes.length; i++) {
+            if(oyentes[i] == oyente) {
+                Oyente[] nuevos = new Oyente[oyentes.length - 1];
+                System.arraycopy(oyentes, 0, nuevos, 0, i);
+                System.arraycopy(oyentes, i + 1, nuevos, i, oyentes.length - i - 1);
+                oyentes = nuevos;
+                return;
+            }
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del ModeloBrazo
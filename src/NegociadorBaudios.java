@@ -0,0 +1,168 @@
+import java.nio.charset.StandardCharsets; // Utilizado para armar las lineas de eco
+import java.util.concurrent.CountDownLatch; // Utilizado para esperar confirmaciones y ecos
+import java.util.concurrent.TimeUnit; // Unidades de los tiempos de espera
+import java.util.concurrent.atomic.AtomicInteger; // Ecos correctos recibidos
+
+// Sube la velocidad del puerto serie al conectar. Por cada velocidad candidata:
+//   1. Se manda "BAUD <velocidad>" a la velocidad actual y el Arduino responde "OK <velocidad>"
+//      antes de cambiarse.
+//   2. Se manda una rafaga de lineas "E..." que el Arduino debe regresar tal cual.
+//   3. Si todos los ecos llegan se mide el rendimiento y se prueba la siguiente velocidad;
+//      si no, se regresa a la ultima que funciono (el Arduino hace lo mismo por su cuenta
+//      si no recibe nada valido en TIEMPO_REVERSION).
+// La velocidad elegida se guarda por puerto para no repetir la busqueda. Si no se pudo subir
+// de la velocidad base solo se anota el intento y se vuelve a buscar pasado ESPERA_REINTENTO.
+public class NegociadorBaudios {
+    public static final int[] CANDIDATOS = {115200, 250000, 500000, 1000000};
+    public static final int TIEMPO_CONFIRMACION = 200; // Milisegundos para el "OK" del cambio
+    public static final int TIEMPO_REVERSION = 600; // Milisegundos que tarda el Arduino en regresar a la velocidad anterior
+    public static final int MARGEN_REVERSION = 200; // Milisegundos de mas, para no hablarle justo cuando se regresa
+    public static final int LINEAS_ECO = 20; // Lineas por rafaga de prueba
+    public static final long ESPERA_REINTENTO = 60 * 60 * 1000L; // Milisegundos antes de buscar otra vez tras un fallo
+
+    private static final byte[] LINEA_ECO = "EU5aU5a0123456789".getBytes(StandardCharsets.US_ASCII); // Patrones de bits alternados
+
+    private final PuertoSerial puerto;
+    private final MemoriaBaudios memoria;
+    private double rendimiento; // Bytes por segundo medidos en la ultima rafaga correcta
+    private double tasaError; // Fraccion de ecos perdidos en la ultima rafaga
+
+    // Constructor
+    public NegociadorBaudios(PuertoSerial puerto, MemoriaBaudios memoria) {
+        this.puerto = puerto;
+        this.memoria = memoria;
+    }
+
+    public double getRendimiento() {
+        return this.rendimiento;
+    }
+
+    public double getTasaError() {
+        return this.tasaError;
+    }
+
+    // Busca la velocidad mas alta confiable y la deja configurada en el puerto
+    public int negociar() {
+        int actual = this.puerto.getBaudios();
+        if(!(this.puerto.getTransport() instanceof TransporteSerial) || !this.puerto.getisOpen()) {
+            return actual; // Los transportes que no son serie no tienen velocidad
+        }
+        String id = this.puerto.getTransport().getIdentificador();
+
+        // Primero se intenta la velocidad recordada para este puerto
+        int recordada = this.memoria.obtener(id);
+        if(recordada > actual) {
+            if(cambiarYProbar(actual, recordada)) {
+                System.out.println("Velocidad recordada: " + recordada + " baudios");
+                return recordada;
+            }
+            this.memoria.olvidar(id);
+        } else {
+            // La velocidad base nunca es definitiva: solo se aplaza la busqueda tras un fallo
+            long transcurrido = System.currentTimeMillis() - this.memoria.obtenerIntento(id);
+            if(transcurrido >= 0 && transcurrido < ESPERA_REINTENTO) {
+                System.out.println("No se pudo subir la velocidad hace poco, se sigue en " + actual + " baudios");
+                return actual;
+            }
+        }
+
+        int base = actual;
+        for(int candidato : CANDIDATOS) {
+            if(candidato <= actual) continue;
+            if(!cambiarYProbar(actual, candidato)) break;
+            actual = candidato;
+            System.out.printf("Velocidad %d confirmada (%.0f bytes/s)%n", candidato, this.rendimiento);
+        }
+        if(actual > base) this.memoria.guardar(id, actual);
+        else this.memoria.guardarIntento(id, System.currentTimeMillis());
+        return actual;
+    }
+
+    // Pide el cambio, lo verifica con la rafaga de eco y si falla regresa a la velocidad anterior.
+    // En los dos fallos se espera a que el Arduino regrese por su cuenta: aunque el "OK" se
+    // pierda, el firmware pudo haberse cambiado y no entenderia nada hasta TIEMPO_REVERSION
+    private boolean cambiarYProbar(int anterior, int nueva) {
+        if(!pedirCambio(nueva)) {
+            dormir(TIEMPO_REVERSION + MARGEN_REVERSION);
+            return false;
+        }
+        this.puerto.configurarPuerto(nueva);
+        if(probarEco(nueva)) return true;
+        dormir(TIEMPO_REVERSION + MARGEN_REVERSION);
+        this.puerto.configurarPuerto(anterior);
+        return false;
+    }
+
+    private boolean pedirCambio(int baudios) {
+        CountDownLatch confirmado = new CountDownLatch(1);
+        OyenteSerial oyente = new OyenteSerial() {
+            @Override
+            public void alConfirmar(int valor) {
+                if(valor == baudios) confirmado.countDown();
+            }
+        };
+        return esperar(oyente, confirmado, TIEMPO_CONFIRMACION, () -> this.puerto.enviarDatos("BAUD " + baudios));
+    }
+
+    private boolean probarEco(int baudios) {
+        CountDownLatch pendientes = new CountDownLatch(LINEAS_ECO);
+        AtomicInteger correctos = new AtomicInteger();
+        OyenteSerial oyente = new OyenteSerial() {
+            @Override
+            public void alRecibirTexto(byte[] linea, int largo) {
+                if(ReceptorSerial.esIgual(linea, largo, LINEA_ECO)) {
+                    correctos.incrementAndGet();
+                    pendientes.countDown();
+                }
+            }
+        };
+        // Ida y vuelta de toda la rafaga (10 bits por byte) con margen
+        int bytes = LINEAS_ECO * (LINEA_ECO.length + 1);
+        long espera = 2L * bytes * 10 * 1000 / baudios + 100;
+        long inicio = System.nanoTime();
+        boolean completo = esperar(oyente, pendientes, espera, () -> {
+            for(int i = 0; i < LINEAS_ECO; i++) {
+                this.puerto.enviarBytes(lineaEco());
+            }
+        });
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        this.tasaError = 1.0 - (double) correctos.get() / LINEAS_ECO;
+        if(completo) this.rendimiento = bytes / segundos;
+        return completo;
+    }
+
+    private static byte[] lineaEco() {
+        byte[] linea = new byte[LINEA_ECO.length + 1];
+        System.arraycopy(LINEA_ECO, 0, linea, 0, LINEA_ECO.length);
+        linea[LINEA_ECO.length] = '\n';
+        return linea;
+    }
+
+    // Registra el oyente, ejecuta el envio y espera a que el contador llegue a cero
+    private boolean esperar(OyenteSerial oyente, CountDownLatch contador, long milisegundos, Runnable envio) {
+        this.puerto.agregarOyente(oyente);
+        try {
+            envio.run();
+            return contador.await(milisegundos, TimeUnit.MILLISECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            this.puerto.quitarOyente(oyente);
+        }
+    }
+
+    private static void dormir(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del NegociadorBaudios
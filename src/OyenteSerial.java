@@ -0,0 +1,23 @@
+// Recibe los mensajes que manda el Arduino, ya clasificados por ReceptorSerial.
+// Se llama desde el hilo de eventos del puerto (nunca desde el EDT), asi que quien
+// quiera tocar la interfaz debe usar SwingUtilities.invokeLater.
+// Los arreglos que se reciben se reutilizan: solo son validos durante la llamada.
+public interface OyenteSerial {
+    // "OK <secuencia>": el Arduino confirmo un comando o trama
+    default void alConfirmar(int secuencia) {}
+
+    // "POS <s0> <s1> <s2> <s3>": angulos reales de los servos
+    default void alReportarPosicion(int[] angulos) {}
+
+    // "ERR <codigo>": el Arduino rechazo algo
+    default void alError(int codigo) {}
+
+    // Cualquier otra linea (mensajes de arranque, saludo del protocolo, depuracion)
+    default void alRecibirTexto(byte[] linea, int largo) {}
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Interfaz del OyenteSerial
@@ -0,0 +1,145 @@
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Gráficas de tira con los últimos segundos de telemetría del ciclo de control
+ * (ángulos, comandos por segundo, profundidad de la cola, retraso del ciclo).
+ * Lee un BufferTelemetria en arreglos propios que se reutilizan entre cuadros y se redibuja
+ * con un temporizador de Swing a cuadros fijos, así que la frecuencia de muestreo no llega
+ * al EDT. Cada columna de píxeles muestra el mínimo y el máximo de sus muestras, por lo que
+ * miles de muestras por segundo cuestan lo mismo de dibujar que unas cuantas.
+ */
+public class PanelTelemetria extends JComponent {
+    private static final int CUADROS_POR_SEGUNDO = 30;
+    private static final int MARGEN = 8;
+    private static final int ALTO_TITULO = 14;
+    private static final Color FONDO = new Color(38, 50, 56); // Opaco: mezclar un fondo translúcido cuesta más que todo lo demás
+    private static final Color REJILLA = new Color(255, 255, 255, 50);
+    private static final Font FUENTE = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private static final Color[] COLORES = {
+            new Color(255, 138, 128), new Color(165, 214, 167), new Color(144, 202, 249),
+            new Color(255, 224, 130), new Color(206, 147, 216), new Color(128, 222, 234),
+            new Color(255, 171, 145)
+    };
+
+    private final BufferTelemetria buffer;
+    private final String[] nombres;
+    private final double[] minimos;
+    private final double[] maximos; // Double.NaN para escalar con lo que se ve
+    private final long ventana; // Nanosegundos que abarca cada gráfica
+    private final double[] valores;
+    private final long[] marcas;
+    // Por columna de píxeles: primera, última, mínima y máxima altura de sus muestras
+    private int[] primero = new int[0], ultimo = new int[0], alto = new int[0], bajo = new int[0];
+    private final javax.swing.Timer refresco = new javax.swing.Timer(1000 / CUADROS_POR_SEGUNDO, e -> repaint());
+
+    /**
+     * @param buffer   Historial que escribe el ciclo de control
+     * @param nombres  Nombre de cada señal, en el orden del buffer
+     * @param minimos  Valor inferior de cada gráfica
+     * @param maximos  Valor superior de cada gráfica, o Double.NaN para escalar con lo visible
+     * @param segundos Segundos que abarca cada gráfica
+     */
+    public PanelTelemetria(BufferTelemetria buffer, String[] nombres, double[] minimos, double[] maximos, double segundos) {
+        if (nombres.length != buffer.getSenales() || minimos.length != nombres.length || maximos.length != nombres.length) {
+            throw new IllegalArgumentException("Las señales de la telemetría no coinciden con el buffer");
+        }
+        this.buffer = buffer;
+        this.nombres = nombres;
+        this.minimos = minimos;
+        this.maximos = maximos;
+        this.ventana = (long) (segundos * 1e9);
+        this.valores = new double[buffer.getCapacidad()];
+        this.marcas = new long[buffer.getCapacidad()];
+        setOpaque(true);
+    }
+
+    /**
+     * Empieza a redibujar a cuadros fijos y muestra el panel.
+     */
+    public void iniciar() {
+        setVisible(true);
+        refresco.start();
+    }
+
+    /**
+     * Deja de redibujar y oculta el panel.
+     */
+    public void detener() {
+        refresco.stop();
+        setVisible(false);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setColor(FONDO);
+        g2.fillRect(0, 0, getWidth(), getHeight());
+        g2.setFont(FUENTE);
+
+        int ancho = getWidth() - 2 * MARGEN;
+        if (ancho < 2) return;
+        if (primero.length != ancho) { // Solo cambia al redimensionar
+            primero = new int[ancho];
+            ultimo = new int[ancho];
+            alto = new int[ancho];
+            bajo = new int[ancho];
+        }
+        int altoFila = (getHeight() - MARGEN) / nombres.length;
+        for (int s = 0; s < nombres.length; s++) {
+            dibujarSenal(g2, s, MARGEN, MARGEN + s * altoFila, ancho, altoFila - MARGEN);
+        }
+    }
+
+    /**
+     * Dibuja una señal en su franja: título con el último valor y la gráfica de la ventana.
+     */
+    private void dibujarSenal(Graphics2D g2, int s, int x0, int y0, int ancho, int altoFranja) {
+        int n = buffer.copiarRecientes(s, valores, marcas);
+        g2.setColor(Color.WHITE);
+        if (n == 0) {
+            g2.drawString(nombres[s], x0, y0 + ALTO_TITULO - 3);
+            return;
+        }
+        long fin = marcas[n - 1], desde = fin - ventana;
+        int primera = 0;
+        while (primera < n - 1 && marcas[primera] < desde) primera++;
+
+        double minimo = minimos[s], maximo = maximos[s];
+        if (Double.isNaN(maximo)) {
+            maximo = minimo + 1;
+            for (int i = primera; i < n; i++) if (valores[i] > maximo) maximo = valores[i];
+        }
+        g2.drawString(nombres[s] + " " + Math.round(valores[n - 1]) + "  (máx " + Math.round(maximo) + ")",
+                x0, y0 + ALTO_TITULO - 3);
+
+        int arriba = y0 + ALTO_TITULO, altoGrafica = Math.max(1, altoFranja - ALTO_TITULO);
+        g2.setColor(REJILLA);
+        g2.drawRect(x0, arriba, ancho - 1, altoGrafica);
+
+        for (int c = 0; c < ancho; c++) {
+            alto[c] = Integer.MAX_VALUE;
+            bajo[c] = Integer.MIN_VALUE;
+        }
+        double escala = altoGrafica / (maximo - minimo);
+        for (int i = primera; i < n; i++) {
+            int c = (int) ((marcas[i] - desde) * (ancho - 1) / ventana);
+            if (c < 0) c = 0;
+            double v = Math.max(minimo, Math.min(maximo, valores[i]));
+            int y = arriba + altoGrafica - (int) ((v - minimo) * escala);
+            if (alto[c] == Integer.MAX_VALUE) primero[c] = y;
+            ultimo[c] = y;
+            if (y < alto[c]) alto[c] = y;
+            if (y > bajo[c]) bajo[c] = y;
+        }
+
+        g2.setColor(COLORES[s % COLORES.length]);
+        int anterior = -1;
+        for (int c = 0; c < ancho; c++) {
+            if (alto[c] == Integer.MAX_VALUE) continue; // Columna sin muestras
+            if (anterior >= 0) g2.drawLine(x0 + anterior, ultimo[anterior], x0 + c, primero[c]);
+            g2.drawLine(x0 + c, alto[c], x0 + c, bajo[c]);
+            anterior = c;
+        }
+    }
+}
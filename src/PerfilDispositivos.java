@@ -0,0 +1,150 @@
+import java.io.IOException; // Errores al leer o escribir el archivo
+import java.io.InputStream; // Lectura del archivo de propiedades
+import java.io.OutputStream; // Escritura del archivo de propiedades
+import java.nio.file.Files; // Utilizado para crear la carpeta y abrir el archivo
+import java.nio.file.Path; // Ruta del archivo
+import java.util.Properties; // Formato del archivo (clave=valor)
+
+// Dispositivos que se eligieron en Configuracion: el puerto del Arduino (por VID/PID/numero
+// de serie, asi se reconoce aunque cambie de COM), su velocidad, el mando por el nombre que
+// reporta SDL y el archivo de mapeo. Al conectar, Jugar va directo a ellos sin sondear los
+// puertos; si alguno ya no esta conectado se detecta como siempre.
+// Se guarda en ~/.brazokraken/perfil.properties
+public class PerfilDispositivos {
+    public static final Path ARCHIVO = CarpetaDatos.RUTA.resolve("perfil.properties");
+
+    private String puerto; // Identificador del puerto (TransporteSerial.identificadorDe), null si no hay
+    private String nombrePuerto; // COM3, ttyACM0... como se vio al guardar
+    private int baudios; // 0: se negocia al conectar
+    private String mando; // Nombre del mando en SDL, null si no hay
+    private int indiceMando = -1; // Indice del mando al guardar
+    private String mapeo; // Archivo de mapeo, null para el de siempre (ver MapeoControles)
+
+    // Lee el perfil guardado; si no hay, regresa uno vacio (se detecta todo)
+    public static PerfilDispositivos leer() {
+        return leer(ARCHIVO);
+    }
+
+    public static PerfilDispositivos leer(Path archivo) {
+        PerfilDispositivos perfil = new PerfilDispositivos();
+        if(!Files.exists(archivo)) return perfil;
+        Properties valores = new Properties();
+        try(InputStream in = Files.newInputStream(archivo)) {
+            valores.load(in);
+        } catch(IOException e) {
+            System.out.println("No se pudo leer " + archivo + ": " + e.getMessage());
+            return perfil;
+        }
+        perfil.puerto = texto(valores, "puerto");
+        perfil.nombrePuerto = texto(valores, "puerto.nombre");
+        perfil.baudios = entero(valores, "puerto.baudios", 0);
+        perfil.mando = texto(valores, "mando");
+        perfil.indiceMando = entero(valores, "mando.indice", -1);
+        perfil.mapeo = texto(valores, "mapeo");
+        return perfil;
+    }
+
+    public void guardar() throws IOException {
+        guardar(ARCHIVO);
+    }
+
+    public void guardar(Path archivo) throws IOException {
+        Properties valores = new Properties();
+        poner(valores, "puerto", puerto);
+        poner(valores, "puerto.nombre", nombrePuerto);
+        if(baudios > 0) valores.setProperty("puerto.baudios", Integer.toString(baudios));
+        poner(valores, "mando", mando);
+        if(indiceMando >= 0) valores.setProperty("mando.indice", Integer.toString(indiceMando));
+        poner(valores, "mapeo", mapeo);
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if(carpeta != null) Files.createDirectories(carpeta);
+        try(OutputStream out = Files.newOutputStream(archivo)) {
+            valores.store(out, "Dispositivos elegidos en Configuracion");
+        }
+    }
+
+    // Mapeo del perfil; si no tiene o no se puede leer, el de siempre
+    public MapeoControles cargarMapeo() {
+        if(mapeo != null) {
+            try {
+                return MapeoControles.cargar(Path.of(mapeo));
+            } catch(IOException | IllegalArgumentException e) {
+                System.out.println("No se pudo usar el mapeo del perfil " + mapeo + ": " + e.getMessage());
+            }
+        }
+        return MapeoControles.cargar();
+    }
+
+    // Funciones para cambiar el perfil
+    public void setPuerto(String identificador, String nombre) {
+        this.puerto = identificador;
+        this.nombrePuerto = nombre;
+    }
+
+    public void setBaudios(int baudios) {
+        if(baudios < 0) {
+            throw new IllegalArgumentException("Velocidad invalida: " + baudios);
+        }
+        this.baudios = baudios;
+    }
+
+    public void setMando(String nombre, int indice) {
+        this.mando = nombre;
+        this.indiceMando = indice;
+    }
+
+    public void setMapeo(Path archivo) {
+        this.mapeo = archivo == null ? null : archivo.toAbsolutePath().toString();
+    }
+
+    // Funciones de consulta
+    public String getPuerto() {
+        return puerto;
+    }
+
+    public String getNombrePuerto() {
+        return nombrePuerto;
+    }
+
+    public int getBaudios() {
+        return baudios;
+    }
+
+    public String getMando() {
+        return mando;
+    }
+
+    public int getIndiceMando() {
+        return indiceMando;
+    }
+
+    public String getMapeo() {
+        return mapeo;
+    }
+
+    // Funciones auxiliares
+    private static String texto(Properties valores, String clave) {
+        String valor = valores.getProperty(clave);
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    private static int entero(Properties valores, String clave, int porDefecto) {
+        String valor = texto(valores, clave);
+        if(valor == null) return porDefecto;
+        try {
+            return Integer.parseInt(valor);
+        } catch(NumberFormatException e) {
+            return porDefecto;
+        }
+    }
+
+    private static void poner(Properties valores, String clave, String valor) {
+        if(valor != null) valores.setProperty(clave, valor);
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del PerfilDispositivos
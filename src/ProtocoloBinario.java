@@ -0,0 +1,97 @@
+// Formato de las tramas binarias entre la computadora y el Arduino.
+//
+//   [0xAA][largo][secuencia][servo0][servo1][servo2][servo3][motorPasos][crc8]
+//
+// El largo cuenta los bytes entre el largo y el CRC (secuencia .. motorPasos). Los
+// angulos son absolutos (0 - 180) y el CRC-8 (polinomio 0x07) cubre desde el largo
+// hasta el ultimo byte de datos, asi un byte corrupto se detecta en lugar de mover el brazo.
+// En modo binario el Arduino responde "OK <secuencia>" por cada trama valida que aplica
+// (ver VentanaConfiable) y descarta en silencio las que no pasan el CRC.
+public final class ProtocoloBinario {
+    public static final byte INICIO = (byte) 0xAA; // Byte de sincronizacion
+    public static final int LARGO_DATOS = 6; // secuencia + 4 servos + motor a pasos
+    public static final int LARGO_TRAMA = LARGO_DATOS + 3; // inicio + largo + datos + crc
+
+    // Estado del motor a pasos dentro de la trama
+    public static final byte PASOS_DETENIDO = 0;
+    public static final byte PASOS_IZQUIERDA = 1;
+    public static final byte PASOS_DERECHA = 2;
+
+    // Mensajes del saludo ASCII con el que se negocia el modo binario
+    public static final String SOLICITUD = "B"; // La computadora pide el modo binario
+    public static final String RESPUESTA = "BIN1"; // El Arduino confirma que lo soporta
+
+    private static final byte[] TABLA_CRC = new byte[256];
+
+    static {
+        for(int i = 0; i < 256; i++) {
+            int crc = i;
+            for(int b = 0; b < 8; b++) {
+                crc = (crc & 0x80) != 0 ? (crc << 1) ^ 0x07 : crc << 1;
+            }
+            TABLA_CRC[i] = (byte) crc;
+        }
+    }
+
+    private ProtocoloBinario() {
+        // Evitar instanciación
+    }
+
+    // Calcula el CRC-8 de una parte del arreglo
+    public static byte crc8(byte[] datos, int desde, int largo) {
+        int crc = 0;
+        for(int i = desde; i < desde + largo; i++) {
+            crc = TABLA_CRC[(crc ^ datos[i]) & 0xFF];
+        }
+        return (byte) crc;
+    }
+
+    // Escribe una trama completa en destino a partir de la posicion indicada
+    public static void codificar(byte[] destino, int desde, int secuencia, int[] angulos, byte motorPasos) {
+        armar(destino, desde, secuencia, angulos[0], angulos[1], angulos[2], angulos[3], motorPasos);
+    }
+
+    public static byte[] codificar(int secuencia, int[] angulos, byte motorPasos) {
+        byte[] trama = new byte[LARGO_TRAMA];
+        codificar(trama, 0, secuencia, angulos, motorPasos);
+        return trama;
+    }
+
+    // Arma la trama directamente de una foto publicada del brazo
+    public static byte[] codificar(int secuencia, EstadoBrazo estado) {
+        byte[] trama = new byte[LARGO_TRAMA];
+        armar(trama, 0, secuencia, estado.getAngulo(0), estado.getAngulo(1), estado.getAngulo(2), estado.getAngulo(3),
+                estado.getMotorPasos());
+        return trama;
+    }
+
+    // Verifica el inicio, el largo y el CRC de una trama recibida
+    public static boolean esValida(byte[] trama, int desde) {
+        return trama[desde] == INICIO
+                && trama[desde + 1] == LARGO_DATOS
+                && crc8(trama, desde + 1, LARGO_DATOS + 1) == trama[desde + 8];
+    }
+
+    // Encabezado, angulos limitados a 0 - 180 y CRC; lo comparten todas las formas de codificar
+    private static void armar(byte[] destino, int desde, int secuencia, int s0, int s1, int s2, int s3, byte motorPasos) {
+        destino[desde] = INICIO;
+        destino[desde + 1] = LARGO_DATOS;
+        destino[desde + 2] = (byte) secuencia;
+        destino[desde + 3] = angulo(s0);
+        destino[desde + 4] = angulo(s1);
+        destino[desde + 5] = angulo(s2);
+        destino[desde + 6] = angulo(s3);
+        destino[desde + 7] = motorPasos;
+        destino[desde + 8] = crc8(destino, desde + 1, LARGO_DATOS + 1);
+    }
+
+    private static byte angulo(int grados) {
+        return (byte) Math.max(0, Math.min(180, grados));
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del ProtocoloBinario
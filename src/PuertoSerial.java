@@ -1,54 +1,147 @@
 
-import java.io.InputStream; // Utilizado para recibir informacion del Arduino
-import java.io.InputStreamReader; // Utilizado para leer la entrada del usuario
 import java.io.OutputStream; // Utilizado para enviar comandos al Arduino
+import java.nio.charset.StandardCharsets; // Utilizado para comparar la respuesta del saludo
 import com.fazecast.jSerialComm.SerialPort; // Utilizado para conectar con el puerto serie
-import java.io.BufferedReader; // Utilizado para leer la entrada del usuario
+import java.util.concurrent.CountDownLatch; // Utilizado para esperar la respuesta del saludo
+import java.util.concurrent.TimeUnit; // Utilizado para los tiempos de espera del hilo escritor
+import java.util.concurrent.atomic.AtomicLong; // Contadores compartidos con el hilo escritor
+import java.util.concurrent.locks.LockSupport; // Utilizado para dormir y despertar al hilo escritor
 
 public class PuertoSerial {
-    private SerialPort port; // Puerto al que esta conectado el arduino
-    private InputStream inpstr; // Utilizado para recibir informacion del Arduino
+    private Transport transporte; // Medio por el que se habla con el arduino (puerto serie, TCP, memoria...)
     private OutputStream outstrm; // Utilizado para enviar comandos al Arduino
-    private BufferedReader bufferedInput; // Utilizado para leer la entrada del Arduino
-    
+    private final ReceptorSerial receptor = new ReceptorSerial(); // Clasifica lo que manda el Arduino
+
+    // Que hacer cuando la cola de comandos esta llena
+    public enum PoliticaDesborde {
+        DESCARTAR_ANTIGUO, // Se tira el comando mas viejo para hacer espacio
+        DESCARTAR_NUEVO,   // Se tira el comando que se intenta enviar
+        BLOQUEAR           // El que envia espera a que haya espacio
+    }
+
+    // Formato de los comandos que se mandan al Arduino
+    public enum Protocolo {
+        ASCII,  // Una letra y '\n' por movimiento relativo (modo original)
+        BINARIO // Tramas con angulos absolutos, secuencia y CRC (ver ProtocoloBinario)
+    }
+
+    public static final int CAPACIDAD_COLA = 64; // Comandos pendientes por defecto
+    public static final int TIEMPO_NEGOCIACION = 300; // Milisegundos para esperar la respuesta del Arduino
+    public static final int BUFFER_ARDUINO = 64; // Bytes del buffer de recepcion del Arduino
+    public static final int PERIODO_SUPERVISION = 100; // Milisegundos entre revisiones de la conexion
+
+    private final ColaComandos cola; // Comandos pendientes de escribir en el puerto
+    private volatile PoliticaDesborde politica; // Politica actual de desborde
+    private volatile Thread hiloEscritor; // Hilo que escribe los comandos en el puerto
+    private volatile boolean escribiendo; // Indica si el hilo escritor debe seguir vivo
+    private volatile boolean enlacePerdido; // El otro extremo se cerro: lo que se mande se descarta
+    private volatile AmbitoDispositivos ambitoSesion = AmbitoDispositivos.global(); // Donde se abre cada conexion
+    private AmbitoDispositivos ambito; // Hilos de la conexion actual (escritor, supervisor y el lector de TCP/pty)
+    private final AtomicLong comandosEnviados = new AtomicLong(); // Comandos escritos en el puerto
+    private final AtomicLong comandosDescartados = new AtomicLong(); // Comandos perdidos por desborde
+    private volatile int profundidadMaxima; // Mayor numero de comandos pendientes observado
+    private volatile Protocolo protocolo = Protocolo.ASCII; // Protocolo acordado con el Arduino
+    private int baudios = 9600; // Velocidad configurada en el transporte
+    private boolean arduinoListo; // El puerto llego abierto del DescubridorPuertos: el Arduino ya arranco
+    private volatile VentanaConfiable ventana; // Control de flujo del modo confiable (null si esta apagado)
+    private OyenteSerial oyenteVentana; // Pasa las confirmaciones del Arduino a la ventana
+    private volatile MedidorLatencia medidor; // Opcional, mide latencias de la ruta de comandos
+    private final long[] marcaEscritor = new long[1]; // Marca del comando que esta escribiendo el hilo escritor
+    private final long[] marcasRafaga; // Marcas de los comandos escritos desde el ultimo flush (solo el escritor)
+    private int enRafaga; // Cuantas marcas hay en marcasRafaga
+
     // Constructor
     public PuertoSerial() {
+        this(CAPACIDAD_COLA, PoliticaDesborde.DESCARTAR_ANTIGUO);
+    }
+
+    public PuertoSerial(int capacidadCola, PoliticaDesborde politica) {
         System.out.println("Iniciando conexion Serial ...");
+        this.cola = new ColaComandos(capacidadCola);
+        this.marcasRafaga = new long[this.cola.getCapacidad()];
+        this.politica = politica;
     }
 
     // Setters y Getters
     public void setPort(SerialPort port) {
-        this.port = port;
+        this.transporte = new TransporteSerial(port);
     }
 
     public String getPort() {
-        return this.port.getSystemPortName();
+        return this.transporte.getNombre();
+    }
+
+    // Permite usar un transporte que no sea un puerto serie (loopback, TCP, pty)
+    public void setTransport(Transport transporte) {
+        this.transporte = transporte;
+    }
+
+    public Transport getTransport() {
+        return this.transporte;
+    }
+
+    // Sesion a la que pertenece el puerto: al cerrarla se cierran los hilos de la conexion
+    public void setAmbito(AmbitoDispositivos ambito) {
+        this.ambitoSesion = ambito;
     }
 
     // Funciones para listar los puertos disponibles y seleccionar un puerto
+    // Usa el descubridor: cache por VID/PID/serie y, si no, saludo en paralelo a todos los puertos
     public boolean detectarArduino() {
-        for(SerialPort p : SerialPort.getCommPorts()) {
-            if(p.getDescriptivePortName().toLowerCase().contains("arduino")) {
-                this.port = p;
-                System.out.println("Arduino detectado en: " + p.getSystemPortName());
-                return true;
-            }
+        DescubridorPuertos descubridor = DescubridorPuertos.getInstancia();
+        descubridor.iniciarVigilancia(this.ambitoSesion); // Hasta que se cierre la sesion
+        SerialPort p = descubridor.buscarArduino();
+        if(p != null) {
+            setPort(p);
+            System.out.println("Arduino detectado en: " + p.getSystemPortName());
+            return true;
         }
         System.out.println("Arduino no detectado");
         return false;
     }
 
+    // Va directo al puerto guardado (ver PerfilDispositivos) sin sondear; si ya no esta
+    // conectado, o no hay ninguno guardado, se detecta como siempre
+    public boolean detectarArduino(String identificador) {
+        if(identificador != null) {
+            for(SerialPort p : SerialPort.getCommPorts()) {
+                if(TransporteSerial.identificadorDe(p).equals(identificador)) {
+                    setPort(p);
+                    System.out.println("Arduino del perfil en: " + p.getSystemPortName());
+                    return true;
+                }
+            }
+            System.out.println("El Arduino del perfil (" + identificador + ") no esta conectado, se busca");
+        }
+        return detectarArduino();
+    }
+
+    // Acepta el numero del puerto en Windows (COMn) o en Linux (ttyUSBn, ttyACMn)
     public boolean seleccionarPuertoPorNumero(int numero) {
-        String nombreBuscado = "COM" + numero;
+        String[] nombresBuscados = {"COM" + numero, "ttyUSB" + numero, "ttyACM" + numero};
         SerialPort[] ports = SerialPort.getCommPorts();
         for(SerialPort p : ports) {
-            if(p.getSystemPortName().equalsIgnoreCase(nombreBuscado)) {
-                this.port = p;
+            for(String nombreBuscado : nombresBuscados) {
+                if(p.getSystemPortName().equalsIgnoreCase(nombreBuscado)) {
+                    setPort(p);
+                    System.out.println("Puerto seleccionado: " + p.getDescriptivePortName());
+                    return true;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No se encontró el puerto número " + numero);
+    }
+
+    // Selecciona por nombre de sistema ("COM3", "ttyACM0") o ruta ("/dev/ttyACM0")
+    public boolean seleccionarPuertoPorNombre(String nombre) {
+        for(SerialPort p : SerialPort.getCommPorts()) {
+            if(p.getSystemPortName().equalsIgnoreCase(nombre) || p.getSystemPortPath().equals(nombre)) {
+                setPort(p);
                 System.out.println("Puerto seleccionado: " + p.getDescriptivePortName());
                 return true;
             }
         }
-        throw new IllegalArgumentException("No se encontró el puerto COM" + numero);
+        throw new IllegalArgumentException("No se encontró el puerto " + nombre);
     }
 
     public void listarPuertos() {
@@ -69,126 +162,394 @@ public class PuertoSerial {
         if(index < 0 || index >= ports.length) { //Envia un mensaje de error si el index no es valido y acaba el programa
             throw new IllegalArgumentException("El index seleccionado no es valido");
         }
-        this.port = ports[index];
-        System.out.println("Puerto seleccionado: " + this.port.getDescriptivePortName());
+        setPort(ports[index]);
+        System.out.println("Puerto seleccionado: " + ports[index].getDescriptivePortName());
         return true;
     }
 
     // Funciones para obtener informacion del puerto serie
     public boolean getisOpen() {
-        return this.port != null && this.port.isOpen();
+        return this.transporte != null && this.transporte.estaAbierto();
     }
 
     public String getPortName() {
-        return (this.port != null) ? this.port.getSystemPortName() : "No hay puerto seleccionado";
+        return (this.transporte != null) ? this.transporte.getNombre() : "No hay puerto seleccionado";
+    }
+
+    public int getBaudios() {
+        return this.baudios;
+    }
+
+    // Sube la velocidad del puerto a la mas alta que el Arduino soporte sin errores
+    public int negociarBaudios() {
+        return new NegociadorBaudios(this, new MemoriaBaudios()).negociar();
+    }
+
+    public Protocolo getProtocolo() {
+        return this.protocolo;
+    }
+
+    // Pregunta al Arduino si entiende tramas binarias, si no responde se queda en ASCII
+    public Protocolo negociarProtocolo() {
+        this.protocolo = Protocolo.ASCII;
+        if(!getisOpen()) return this.protocolo;
+        byte[] esperada = ProtocoloBinario.RESPUESTA.getBytes(StandardCharsets.US_ASCII);
+        CountDownLatch confirmado = new CountDownLatch(1);
+        OyenteSerial saludo = new OyenteSerial() {
+            @Override
+            public void alRecibirTexto(byte[] linea, int largo) {
+                if(ReceptorSerial.esIgual(linea, largo, esperada)) confirmado.countDown();
+            }
+        };
+        this.receptor.agregarOyente(saludo);
+        try {
+            enviarDatos(ProtocoloBinario.SOLICITUD);
+            if(confirmado.await(TIEMPO_NEGOCIACION, TimeUnit.MILLISECONDS)) {
+                this.protocolo = Protocolo.BINARIO;
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.receptor.quitarOyente(saludo);
+        }
+        System.out.println("Protocolo serial: " + this.protocolo);
+        return this.protocolo;
+    }
+
+    // Modo confiable: cada trama binaria espera su "OK <secuencia>" y no se mandan mas
+    // de las que caben en el buffer del Arduino. Solo aplica al protocolo binario.
+    public void setModoConfiable(boolean activo) {
+        setModoConfiable(activo, BUFFER_ARDUINO / ProtocoloBinario.LARGO_TRAMA);
+    }
+
+    public synchronized void setModoConfiable(boolean activo, int tamanoVentana) {
+        if(this.oyenteVentana != null) {
+            this.receptor.quitarOyente(this.oyenteVentana);
+            this.oyenteVentana = null;
+        }
+        this.ventana = null;
+        if(!activo) return;
+        VentanaConfiable nueva = new VentanaConfiable(tamanoVentana, this::enviarBytes);
+        nueva.setMedidor(this.medidor);
+        this.oyenteVentana = new OyenteSerial() {
+            @Override
+            public void alConfirmar(int secuencia) {
+                nueva.confirmar(secuencia);
+            }
+        };
+        this.receptor.agregarOyente(this.oyenteVentana);
+        this.ventana = nueva;
+    }
+
+    public boolean isModoConfiable() {
+        return this.ventana != null;
+    }
+
+    public VentanaConfiable getVentana() {
+        return this.ventana;
+    }
+
+    public synchronized void setMedidor(MedidorLatencia medidor) {
+        this.medidor = medidor;
+        VentanaConfiable v = this.ventana;
+        if(v != null) v.setMedidor(medidor);
+    }
+
+    // Funciones para escuchar lo que manda el Arduino
+    public void agregarOyente(OyenteSerial oyente) {
+        this.receptor.agregarOyente(oyente);
+    }
+
+    public void quitarOyente(OyenteSerial oyente) {
+        this.receptor.quitarOyente(oyente);
+    }
+
+    public long getMensajesRecibidos() {
+        return this.receptor.getMensajes();
+    }
+
+    // Funciones para consultar y configurar la cola de comandos
+    public void setPoliticaDesborde(PoliticaDesborde politica) {
+        this.politica = politica;
+    }
+
+    public PoliticaDesborde getPoliticaDesborde() {
+        return this.politica;
+    }
+
+    public int getProfundidadCola() {
+        return this.cola.tamano();
+    }
+
+    public int getProfundidadMaxima() {
+        return this.profundidadMaxima;
+    }
+
+    public long getComandosEnviados() {
+        return this.comandosEnviados.get();
+    }
+
+    public long getComandosDescartados() {
+        return this.comandosDescartados.get();
     }
 
     // Funciones para configurar el puerto serie, dependiendo de los parametros que se le pasen
     public void configurarPuerto() {
-        if(this.port == null) {
+        if(this.transporte == null) {
             throw new IllegalArgumentException("Index no selecionado");
         }
-        this.port.setComPortParameters(9600, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        this.baudios = 9600;
+        this.transporte.configurar(9600, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
     }
 
     public void configurarPuerto(int bauds) {
-        if(this.port == null) {
+        if(this.transporte == null) {
             throw new IllegalArgumentException("Index no selecionado");
         }
-        this.port.setComPortParameters(bauds, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        this.baudios = bauds;
+        this.transporte.configurar(bauds, 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
     }
 
     public void configurarPuerto(int bauds, int databits) {
-        if(this.port == null){
+        if(this.transporte == null){
             throw new IllegalArgumentException("Index no selecionado");
         }
-        this.port.setComPortParameters(bauds, databits, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        this.baudios = bauds;
+        this.transporte.configurar(bauds, databits, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
     }
 
     public void configurarPuerto(int bauds, int databits, int stopbits) {
-        if(this.port == null) {
+        if(this.transporte == null) {
             throw new IllegalArgumentException("Index no selecionado");
         }
-        this.port.setComPortParameters(bauds, databits, stopbits, SerialPort.NO_PARITY);
+        this.baudios = bauds;
+        this.transporte.configurar(bauds, databits, stopbits, SerialPort.NO_PARITY);
     }
 
     public void configurarPuerto(int bauds, int bindat, int bitsparo, int paridad) {
-        if(this.port == null) {
+        if(this.transporte == null) {
             throw new IllegalArgumentException("Index no selecionado");
         }
-        this.port.setComPortParameters(bauds, bindat, bitsparo, paridad);
+        this.baudios = bauds;
+        this.transporte.configurar(bauds, bindat, bitsparo, paridad);
     }
 
     // Funciones para configurar los timeouts del puerto serie
     public void configurarTimeouts(String mode, int timeout) {
+        if(!(this.transporte instanceof TransporteSerial serial)) return; // Solo aplica a puertos serie
         int moodInt = (mode.equals("Leer")) ? SerialPort.TIMEOUT_READ_BLOCKING : SerialPort.TIMEOUT_WRITE_BLOCKING;
-        this.port.setComPortTimeouts(moodInt, timeout, 0);
+        serial.getPuerto().setComPortTimeouts(moodInt, timeout, 0);
     }
 
     // Funciones para conectar y desconectar el puerto serie
     public boolean abrirPuerto() {
-        if(this.port == null) {
+        if(this.transporte == null) {
             throw new IllegalArgumentException("Puerto no Abierto");
         }
-        boolean open = this.port.openPort();
+        retomarIdentificado();
+        AmbitoDispositivos conexion = this.ambitoSesion.abrir(this.transporte.getNombre());
+        boolean open = this.transporte.abrir(this.receptor::procesar, conexion);
         if(open) {
             System.out.println("Puerto abierto");
-            try { 
-                this.inpstr = this.port.getInputStream();
-                this.outstrm = this.port.getOutputStream();
-                this.bufferedInput = new BufferedReader(new InputStreamReader(this.inpstr, "UTF-8"));
-            } catch(Exception e) {
-                e.printStackTrace();
-            }
+            this.ambito = conexion;
+            this.outstrm = this.transporte.getSalida();
+            this.enlacePerdido = false;
+            iniciarEscritor();
+            this.ambito.iniciar("supervisor", this::cicloSupervisor);
             return true;
         }
         else {
+            conexion.cerrar();
             System.out.println("No se pudo abrir el puerto");
             return false;
         }
     }
 
+    // Usa el puerto que el DescubridorPuertos acaba de identificar, si sigue abierto y a la misma
+    // velocidad: asi no se reinicia el Arduino otra vez al abrirlo
+    private void retomarIdentificado() {
+        this.arduinoListo = false;
+        if(!(this.transporte instanceof TransporteSerial serial) || serial.estaAbierto()) return;
+        TransporteSerial abierto = DescubridorPuertos.getInstancia().retomar(serial.getIdentificador());
+        if(abierto == null) return;
+        if(this.baudios != DescubridorPuertos.BAUDIOS_SALUDO) {
+            abierto.cerrar(); // Se abre de nuevo a la velocidad pedida
+            return;
+        }
+        this.transporte = abierto;
+        this.arduinoListo = true;
+    }
+
+    // True si el puerto se recibio ya abierto y el Arduino respondio el saludo, no hay que
+    // esperar a que arranque
+    public boolean isArduinoListo() {
+        return this.arduinoListo;
+    }
+
     public void cerrarPuerto() {
-        try {
-            if(this.bufferedInput != null) this.bufferedInput.close();
-            if(this.inpstr != null) this.inpstr.close();
-            if(this.outstrm != null) this.outstrm.close();
-        } catch(Exception e) {
-            e.printStackTrace();
+        detenerEscritor();
+        VentanaConfiable v = this.ventana;
+        if(v != null) v.reiniciar();
+        this.outstrm = null;
+        this.enlacePerdido = false;
+        this.protocolo = Protocolo.ASCII;
+        if(this.transporte != null) {
+            boolean estabaAbierto = this.transporte.estaAbierto();
+            this.transporte.cerrar(); // Aunque el otro extremo ya haya cerrado, se liberan los recursos
+            if(estabaAbierto) System.out.println("Puerto cerrado");
         }
-        if(this.port != null && this.port.isOpen()) {
-            this.port.closePort();
-            System.out.println("Puerto cerrado");
+        if(this.ambito != null) {
+            this.ambito.cerrar(); // Termina el supervisor (y el lector de TCP/pty; el de jSerialComm termino con cerrar)
+            this.ambito = null;
         }
     }
     
     // Funciones para enviar y recibir datos
+    // Encola el mensaje sin esperar al puerto, el hilo escritor se encarga de enviarlo
     public void enviarDatos(String message) {
+        enviarBytes((message.trim() + "\n").getBytes());
+    }
+
+    public void enviarBytes(byte[] datos) {
+        enviarBytes(datos, System.nanoTime());
+    }
+
+    // marcaEntrada es el System.nanoTime() de la lectura del control que origino los datos
+    public void enviarBytes(byte[] datos, long marcaEntrada) {
         if(this.outstrm == null) {
             System.out.println("Error: el puerto no está abierto.");
             return;
         }
-        try {
-            this.outstrm.write((message.trim() + "\n").getBytes());
-            this.outstrm.flush(); 
-            System.out.println("Mensaje enviado: " + message);
-        } catch(Exception e) {
-            e.printStackTrace();
+        if(this.enlacePerdido) { // Ya no hay escritor que vacie la cola; el aviso lo dio el supervisor
+            this.comandosDescartados.incrementAndGet();
+            return;
         }
+        encolar(datos, marcaEntrada);
     }
 
-    public String recibirDatos() {
+    // Manda una trama del protocolo binario, pasando por la ventana si el modo confiable esta activo
+    public void enviarTrama(byte[] trama) {
+        enviarTrama(trama, System.nanoTime());
+    }
+
+    public void enviarTrama(byte[] trama, long marcaEntrada) {
+        VentanaConfiable v = this.ventana;
+        if(v != null && this.protocolo == Protocolo.BINARIO) {
+            v.enviar(trama, marcaEntrada);
+        } else {
+            enviarBytes(trama, marcaEntrada);
+        }
+    }
+
+    private void encolar(byte[] datos, long marca) {
+        switch(this.politica) {
+            case DESCARTAR_NUEVO -> {
+                if(!this.cola.ofrecer(datos, marca)) {
+                    this.comandosDescartados.incrementAndGet();
+                    return;
+                }
+            }
+            case DESCARTAR_ANTIGUO -> {
+                while(!this.cola.ofrecer(datos, marca)) {
+                    if(this.cola.sacar() != null) this.comandosDescartados.incrementAndGet();
+                }
+            }
+            case BLOQUEAR -> {
+                while(!this.cola.ofrecer(datos, marca)) {
+                    if(!this.escribiendo) { // Si ya no hay escritor nadie va a liberar espacio
+                        this.comandosDescartados.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+            }
+        }
+        int profundidad = this.cola.tamano();
+        if(profundidad > this.profundidadMaxima) this.profundidadMaxima = profundidad;
+        Thread escritor = this.hiloEscritor;
+        if(escritor != null) LockSupport.unpark(escritor);
+    }
+
+    // Funciones del hilo escritor
+    private void iniciarEscritor() {
+        if(this.hiloEscritor != null) return;
+        this.escribiendo = true;
+        this.hiloEscritor = this.ambito.iniciar("escritor", this::cicloEscritor);
+    }
+
+    private void detenerEscritor() {
+        Thread hilo = this.hiloEscritor;
+        if(hilo == null) return;
+        this.escribiendo = false;
+        LockSupport.unpark(hilo);
         try {
-            if(this.bufferedInput != null) {
-                String dato = this.bufferedInput.readLine();
-                return dato != null ? dato.trim() : "NO_DATA";
+            hilo.join(500); // Se le da tiempo de vaciar lo pendiente
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.hiloEscritor = null;
+    }
+
+    private void cicloEscritor() {
+        while((this.escribiendo || !this.cola.estaVacia()) && !Thread.currentThread().isInterrupted()) {
+            byte[] datos = this.cola.sacar(this.marcaEscritor);
+            if(datos == null) {
+                VentanaConfiable v = this.ventana;
+                if(v != null) v.revisarTiempos(System.nanoTime()); // Aprovecha la pausa para revisar reenvios
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                continue;
+            }
+            try {
+                this.outstrm.write(datos);
+                this.comandosEnviados.incrementAndGet();
+                this.marcasRafaga[this.enRafaga++] = this.marcaEscritor[0];
+                // Un solo flush por rafaga (o cuando ya no caben mas marcas)
+                if(this.cola.estaVacia() || this.enRafaga == this.marcasRafaga.length) {
+                    this.outstrm.flush();
+                    registrarRafaga();
+                }
+            } catch(Exception e) {
+                this.enRafaga = 0;
+                e.printStackTrace();
+                if(!this.escribiendo) return;
+            }
+        }
+    }
+
+    // Los bytes salen del proceso con el flush, no con el write: hasta entonces los transportes
+    // con buffer (TCP, pty) los retienen. Se mide entrada -> cable de cada comando de la rafaga
+    private void registrarRafaga() {
+        MedidorLatencia m = this.medidor;
+        if(m != null) {
+            for(int i = 0; i < this.enRafaga; i++) {
+                m.registrarDesde(MedidorLatencia.Etapa.ENTRADA_CABLE, this.marcasRafaga[i]);
             }
-        } catch(Exception e) {
-            e.printStackTrace();
-            return "SYNTAX_ERROR";
         }
-        return "NO_DATA";
+        this.enRafaga = 0;
     }
+
+    // Revisa que el transporte siga abierto; si el otro extremo se cae (cable, socket) detiene
+    // al escritor y tira lo pendiente en vez de seguir escribiendo en un flujo muerto
+    private void cicloSupervisor() {
+        Transport vigilado = this.transporte;
+        while(this.escribiendo) {
+            if(!vigilado.estaAbierto() && this.escribiendo) { // Cerrado por el otro lado, no por cerrarPuerto
+                System.out.println("Se perdio la conexion con " + vigilado.getNombre());
+                this.enlacePerdido = true; // Antes de vaciar, para que no se encole nada mas
+                this.escribiendo = false;
+                while(this.cola.sacar() != null) this.comandosDescartados.incrementAndGet();
+                Thread escritor = this.hiloEscritor;
+                if(escritor != null) LockSupport.unpark(escritor);
+                return;
+            }
+            try {
+                Thread.sleep(PERIODO_SUPERVISION);
+            } catch(InterruptedException e) {
+                return; // Se cerro el ambito de la conexion
+            }
+        }
+    }
+
 }
 
 // /\_/\
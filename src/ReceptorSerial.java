@@ -0,0 +1,140 @@
+import java.nio.charset.StandardCharsets; // Utilizado para comparar lineas con textos conocidos
+import java.util.Arrays; // Utilizado para copiar la lista de oyentes
+
+// Arma lineas a partir de los bytes que llegan del Arduino y las reparte a los oyentes
+// como mensajes con tipo. Todo se hace sobre buffers reutilizables, sin crear objetos
+// por mensaje. Solo debe alimentarse desde un hilo a la vez (el de eventos del puerto).
+public class ReceptorSerial {
+    public static final int LARGO_MAXIMO = 64; // Bytes maximos por linea, igual al buffer del Arduino
+    private static final int MAX_VALORES = 4; // Numeros maximos por mensaje
+
+    private static final byte[] PREFIJO_OK = "OK".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PREFIJO_POS = "POS".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PREFIJO_ERR = "ERR".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] linea = new byte[LARGO_MAXIMO]; // Linea en construccion
+    private int largo; // Bytes acumulados en la linea
+    private boolean desbordada; // La linea actual ya no cabe y se va a descartar
+    private final int[] valores = new int[MAX_VALORES]; // Numeros de la ultima linea
+
+    private volatile OyenteSerial[] oyentes = new OyenteSerial[0]; // Se copia al modificar, se lee sin bloqueo
+    private long mensajes; // Lineas completas procesadas
+    private long descartados; // Lineas demasiado largas
+
+    // Funciones para registrar oyentes
+    public synchronized void agregarOyente(OyenteSerial oyente) {
+        OyenteSerial[] nuevos = Arrays.copyOf(oyentes, oyentes.length + 1);
+        nuevos[oyentes.length] = oyente;
+        oyentes = nuevos;
+    }
+
+    public synchronized void quitarOyente(OyenteSerial oyente) {
+        for(int i = 0; i < oyentes.length; i++) {
+            if(oyentes[i] == oyente) {
+                OyenteSerial[] nuevos = new OyenteSerial[oyentes.length - 1];
+                System.arraycopy(oyentes, 0, nuevos, 0, i);
+                System.arraycopy(oyentes, i + 1, nuevos, i, oyentes.length - i - 1);
+                oyentes = nuevos;
+                return;
+            }
+        }
+    }
+
+    public long getMensajes() {
+        return mensajes;
+    }
+
+    public long getDescartados() {
+        return descartados;
+    }
+
+    // Procesa los bytes recibidos, pueden traer lineas incompletas o varias lineas
+    public void procesar(byte[] datos, int cantidad) {
+        for(int i = 0; i < cantidad; i++) {
+            byte b = datos[i];
+            if(b == '\n') {
+                if(desbordada) {
+                    descartados++;
+                } else {
+                    despachar();
+                }
+                largo = 0;
+                desbordada = false;
+            } else if(b != '\r') {
+                if(largo < LARGO_MAXIMO) {
+                    linea[largo++] = b;
+                } else {
+                    desbordada = true;
+                }
+            }
+        }
+    }
+
+    // Clasifica la linea completa y avisa a los oyentes
+    private void despachar() {
+        if(largo == 0) return;
+        mensajes++;
+        OyenteSerial[] actuales = oyentes;
+        if(empiezaCon(PREFIJO_POS)) {
+            if(leerValores(PREFIJO_POS.length) == MAX_VALORES) {
+                for(OyenteSerial o : actuales) o.alReportarPosicion(valores);
+                return;
+            }
+        } else if(empiezaCon(PREFIJO_OK)) {
+            if(leerValores(PREFIJO_OK.length) == 1) {
+                for(OyenteSerial o : actuales) o.alConfirmar(valores[0]);
+                return;
+            }
+        } else if(empiezaCon(PREFIJO_ERR)) {
+            int n = leerValores(PREFIJO_ERR.length);
+            for(OyenteSerial o : actuales) o.alError(n > 0 ? valores[0] : -1);
+            return;
+        }
+        for(OyenteSerial o : actuales) o.alRecibirTexto(linea, largo);
+    }
+
+    private boolean empiezaCon(byte[] prefijo) {
+        if(largo < prefijo.length) return false;
+        for(int i = 0; i < prefijo.length; i++) {
+            if(linea[i] != prefijo[i]) return false;
+        }
+        // El prefijo debe ser la palabra completa ("OK" si, "OKAY" no)
+        return largo == prefijo.length || linea[prefijo.length] == ' ';
+    }
+
+    // Lee los enteros separados por espacios a partir de una posicion, regresa cuantos leyo
+    private int leerValores(int desde) {
+        int n = 0;
+        int i = desde;
+        while(i < largo && n < MAX_VALORES) {
+            while(i < largo && linea[i] == ' ') i++;
+            if(i == largo) break;
+            boolean negativo = linea[i] == '-';
+            if(negativo) i++;
+            int inicio = i;
+            int valor = 0;
+            while(i < largo && linea[i] >= '0' && linea[i] <= '9') {
+                valor = valor * 10 + (linea[i] - '0');
+                i++;
+            }
+            if(i == inicio) return -1; // No era un numero
+            valores[n++] = negativo ? -valor : valor;
+        }
+        return n;
+    }
+
+    // Compara una linea recibida con un texto sin crear Strings
+    public static boolean esIgual(byte[] linea, int largo, byte[] texto) {
+        if(largo != texto.length) return false;
+        for(int i = 0; i < largo; i++) {
+            if(linea[i] != texto[i]) return false;
+        }
+        return true;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del ReceptorSerial
@@ -0,0 +1,162 @@
+import java.io.IOException; // Errores al abrir el archivo
+import java.nio.MappedByteBuffer; // Archivo mapeado en memoria
+import java.nio.channels.FileChannel; // Canal para mapear el archivo
+import java.nio.file.Path; // Ruta del archivo
+import java.nio.file.StandardOpenOption; // Modo de apertura del archivo
+import java.util.concurrent.locks.LockSupport; // Espera de alta resolucion
+
+// Reproduce una grabacion de GrabadorMovimientos en un hilo propio. Primero lleva el brazo
+// a la pose de partida con una trayectoria planeada y luego manda cada estado en su
+// instante, dividido entre la velocidad, con la misma espera que BucleControl (park hasta
+// casi la fecha y espera activa el ultimo tramo). Los registros se leen directo del mapa
+// a un arreglo reutilizado, asi que reproducir no crea objetos por evento.
+public class ReproductorMovimientos {
+    public static final double VELOCIDAD_MINIMA = 0.1;
+    public static final double VELOCIDAD_MAXIMA = 10.0;
+
+    private final MappedByteBuffer mapa;
+    private final long total;
+    private volatile boolean reproduciendo;
+    private volatile Thread hilo;
+    private volatile long vueltas;
+
+    // Diferencia entre el instante programado de cada registro y el real
+    private final HistogramaLatencia errores = new HistogramaLatencia("Error de reproduccion");
+
+    // Abre una grabacion (solo lectura); falla si no es un archivo de GrabadorMovimientos
+    public ReproductorMovimientos(Path archivo) throws IOException {
+        try(FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if(canal.size() < GrabadorMovimientos.CABECERA) {
+                throw new IOException("Grabacion vacia: " + archivo);
+            }
+            MappedByteBuffer cabecera = canal.map(FileChannel.MapMode.READ_ONLY, 0, GrabadorMovimientos.CABECERA);
+            if(cabecera.getInt(0) != GrabadorMovimientos.MAGIA || cabecera.getInt(4) != GrabadorMovimientos.VERSION) {
+                throw new IOException("No es una grabacion de movimientos: " + archivo);
+            }
+            long registros = cabecera.getLong(8);
+            long largo = GrabadorMovimientos.CABECERA + registros * GrabadorMovimientos.LARGO_REGISTRO;
+            if(registros <= 0 || largo > canal.size()) {
+                throw new IOException("Grabacion incompleta: " + archivo);
+            }
+            this.total = registros;
+            this.mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo); // Sigue valido al cerrar el canal
+        }
+    }
+
+    public ReproductorMovimientos() throws IOException {
+        this(GrabadorMovimientos.ARCHIVO);
+    }
+
+    // Funciones para arrancar y detener la reproduccion
+    public synchronized void iniciar(ControlArduino control, double velocidad, boolean repetir) {
+        if(velocidad < VELOCIDAD_MINIMA || velocidad > VELOCIDAD_MAXIMA) {
+            throw new IllegalArgumentException("Velocidad de reproduccion fuera de rango: " + velocidad);
+        }
+        if(reproduciendo) return;
+        reproduciendo = true;
+        vueltas = 0;
+        Thread t = new Thread(() -> reproducir(control, velocidad, repetir), "Reproductor");
+        t.setDaemon(true);
+        t.setPriority(Thread.MAX_PRIORITY);
+        hilo = t;
+        t.start();
+    }
+
+    public synchronized void detener() {
+        reproduciendo = false;
+        Thread t = hilo;
+        hilo = null;
+        if(t == null) return;
+        LockSupport.unpark(t);
+        if(t != Thread.currentThread()) {
+            try {
+                t.join(1000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isReproduciendo() {
+        return reproduciendo;
+    }
+
+    private void reproducir(ControlArduino control, double velocidad, boolean repetir) {
+        int[] angulos = new int[EstadoBrazo.SERVOS];
+        try {
+            do {
+                // Pose de partida con una trayectoria, sin saltos bruscos
+                leer(0, angulos);
+                if(!control.moverA(angulos)) break;
+                while(reproduciendo && control.hayTrayectoria()) {
+                    LockSupport.parkNanos(5_000_000L);
+                }
+
+                long inicio = System.nanoTime();
+                for(long i = 1; i < total && reproduciendo; i++) {
+                    long fecha = inicio + (long) (tiempo(i) / velocidad);
+                    esperarHasta(fecha);
+                    if(!reproduciendo) break;
+                    errores.registrar(Math.abs(System.nanoTime() - fecha));
+                    byte motor = leer(i, angulos);
+                    if(!control.aplicarConsignas(angulos, motor)) {
+                        reproduciendo = false; // Puerto cerrado o paro de emergencia
+                    }
+                }
+                vueltas++;
+            } while(repetir && reproduciendo);
+        } finally {
+            reproduciendo = false;
+        }
+    }
+
+    // Duerme hasta poco antes de la fecha limite y gira el ultimo tramo
+    private void esperarHasta(long fecha) {
+        while(reproduciendo) {
+            long restante = fecha - System.nanoTime();
+            if(restante <= 0) return;
+            if(restante > BucleControl.UMBRAL_ESPERA_ACTIVA) {
+                LockSupport.parkNanos(restante - BucleControl.UMBRAL_ESPERA_ACTIVA);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // Lee los angulos del registro i y regresa el estado del motor a pasos
+    private byte leer(long i, int[] angulos) {
+        int posicion = (int) (GrabadorMovimientos.CABECERA + i * GrabadorMovimientos.LARGO_REGISTRO);
+        for(int s = 0; s < angulos.length; s++) {
+            angulos[s] = mapa.get(posicion + 8 + s) & 0xFF;
+        }
+        return mapa.get(posicion + 8 + EstadoBrazo.SERVOS);
+    }
+
+    private long tiempo(long i) {
+        return mapa.getLong((int) (GrabadorMovimientos.CABECERA + i * GrabadorMovimientos.LARGO_REGISTRO));
+    }
+
+    // Funciones de consulta
+    public long getTotal() {
+        return total;
+    }
+
+    // Duracion de la grabacion a velocidad 1, en nanosegundos
+    public long getDuracion() {
+        return tiempo(total - 1);
+    }
+
+    public long getVueltas() {
+        return vueltas;
+    }
+
+    public HistogramaLatencia getErrores() {
+        return errores;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del ReproductorMovimientos
@@ -0,0 +1,180 @@
+import java.util.ArrayList; // Brazos agregados antes de iniciar
+import java.util.List; // Lista de brazos para consultar
+import java.util.concurrent.Phaser; // Sincroniza el ciclo con los hilos de trabajo
+import java.util.concurrent.atomic.AtomicLong; // Errores contados desde varios hilos
+
+// Sesion de varios brazos, cada uno conducido por un mando (o varios por el mismo, en modo
+// espejo). Todo corre en un solo BucleControl: en cada ciclo se sondea SDL una vez para
+// todos los mandos (ConcentradorMandos) y luego se hace el ciclo de cada brazo. Con mas de
+// un hilo, los brazos se reparten entre el hilo del ciclo y un grupo fijo de trabajadores
+// que avanzan juntos con un Phaser, sin crear tareas ni objetos por ciclo.
+public class SesionBrazos {
+    public static final int MAX_HILOS = 8;
+    private static final int MAX_ERRORES_IMPRESOS = 10;
+
+    // Un brazo de la sesion y el mando que lo conduce
+    private static final class Brazo {
+        final ControlArduino control;
+        final ControlXbox mando;
+        boolean desconectado = false;
+
+        Brazo(ControlArduino control, ControlXbox mando) {
+            this.control = control;
+            this.mando = mando;
+        }
+
+        // Igual que la vista: la foto ya tomada en este ciclo, y sin mando solo avanza la trayectoria
+        void ciclo() {
+            EstadoMando estado = mando.getEstado();
+            if(!estado.isConectado() || !control.arduino.getisOpen()) {
+                if(!desconectado) {
+                    desconectado = true;
+                    System.out.println("Brazo en " + control.arduino.getPortName() + ": hardware desconectado");
+                }
+                control.avanzarTrayectoria(estado.getMarca());
+                return;
+            }
+            if(desconectado) {
+                desconectado = false;
+                System.out.println("Brazo en " + control.arduino.getPortName() + ": hardware reconectado");
+            }
+            control.mandarDatos(estado);
+        }
+    }
+
+    private final ConcentradorMandos concentrador;
+    private final double frecuencia;
+    private final int hilos;
+    private final List<Brazo> lista = new ArrayList<>();
+    private volatile Brazo[] brazos = new Brazo[0];
+    private int partes = 1; // Hilos que reparten los brazos en cada ciclo
+    private BucleControl bucle;
+    private Phaser fases;
+    private Thread[] trabajadores = new Thread[0];
+    private volatile boolean corriendo;
+    private final AtomicLong errores = new AtomicLong();
+
+    // Constructor
+    public SesionBrazos(ConcentradorMandos concentrador, double frecuencia, int hilos) {
+        if(hilos < 1 || hilos > MAX_HILOS) {
+            throw new IllegalArgumentException("Hilos fuera de rango (1-" + MAX_HILOS + "): " + hilos);
+        }
+        this.concentrador = concentrador;
+        this.frecuencia = frecuencia;
+        this.hilos = hilos;
+    }
+
+    // Agrega un brazo conducido por el mando del indice dado; varios brazos con el mismo
+    // indice lo siguen en espejo
+    public ControlArduino agregarBrazo(PuertoSerial puerto, int mando) {
+        return agregarBrazo(puerto, concentrador.obtener(mando));
+    }
+
+    public synchronized ControlArduino agregarBrazo(PuertoSerial puerto, ControlXbox mando) {
+        if(corriendo) {
+            throw new IllegalStateException("No se pueden agregar brazos con la sesion corriendo");
+        }
+        ControlArduino control = new ControlArduino(mando, puerto);
+        lista.add(new Brazo(control, mando));
+        brazos = lista.toArray(new Brazo[0]);
+        return control;
+    }
+
+    public synchronized List<ControlArduino> getBrazos() {
+        List<ControlArduino> controles = new ArrayList<>();
+        for(Brazo b : lista) controles.add(b.control);
+        return controles;
+    }
+
+    // Funciones para arrancar y detener la sesion
+    public synchronized void iniciar() {
+        if(corriendo) return;
+        corriendo = true;
+        partes = Math.min(hilos, Math.max(1, brazos.length));
+        if(partes > 1) {
+            fases = new Phaser(partes);
+            trabajadores = new Thread[partes - 1];
+            for(int k = 1; k < partes; k++) {
+                int parte = k;
+                Thread t = new Thread(() -> trabajar(parte), "SesionBrazos-" + k);
+                t.setDaemon(true);
+                t.setPriority(Thread.MAX_PRIORITY);
+                trabajadores[k - 1] = t;
+                t.start();
+            }
+        }
+        bucle = new BucleControl("SesionBrazos-control", frecuencia, BucleControl.PoliticaRetraso.SALTAR, this::ciclo);
+        bucle.iniciar();
+    }
+
+    public synchronized void detener() {
+        corriendo = false;
+        if(bucle != null) bucle.detener();
+        if(fases != null) fases.forceTermination(); // Libera a los trabajadores que esperan
+        for(Thread t : trabajadores) {
+            try {
+                t.join(1000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        trabajadores = new Thread[0];
+        fases = null;
+    }
+
+    public boolean isCorriendo() {
+        return corriendo;
+    }
+
+    // Un ciclo de la sesion: un solo sondeo de los mandos y el ciclo de todos los brazos
+    void ciclo() {
+        concentrador.sondear();
+        if(partes == 1) {
+            atender(0, 1);
+            return;
+        }
+        Phaser f = fases;
+        f.arriveAndAwaitAdvance(); // Arrancan los trabajadores
+        try {
+            atender(0, partes);
+        } finally {
+            f.arriveAndAwaitAdvance(); // Todos terminaron su parte
+        }
+    }
+
+    private void trabajar(int parte) {
+        Phaser f = fases;
+        while(corriendo) {
+            if(f.arriveAndAwaitAdvance() < 0) return; // Sesion detenida
+            atender(parte, partes);
+            if(f.arriveAndAwaitAdvance() < 0) return;
+        }
+    }
+
+    // Brazos parte, parte + partes, parte + 2 * partes... para que cada hilo tenga los suyos
+    private void atender(int parte, int partes) {
+        Brazo[] actuales = brazos;
+        for(int i = parte; i < actuales.length; i += partes) {
+            try {
+                actuales[i].ciclo();
+            } catch(RuntimeException e) {
+                if(errores.incrementAndGet() <= MAX_ERRORES_IMPRESOS) e.printStackTrace();
+            }
+        }
+    }
+
+    // Funciones para consultar las estadisticas
+    public BucleControl getBucle() {
+        return bucle;
+    }
+
+    public long getErrores() {
+        return errores.get();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la SesionBrazos
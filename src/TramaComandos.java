@@ -0,0 +1,106 @@
+// Junta los comandos de un ciclo del control en una sola trama para el Arduino.
+// Los comandos contrarios se cancelan (j con k, i con m, o con p, q con w) y para el
+// motor a pasos (L, R, S) solo cuenta el ultimo comando del ciclo.
+public class TramaComandos {
+    public static final int MAX_COMANDOS = 16; // Mas que suficiente para un ciclo
+
+    private final char[] comandos = new char[MAX_COMANDOS]; // Comandos del ciclo en orden
+    private int total; // Numero de comandos en la trama
+
+    // Agrega un comando aplicando las reglas de combinacion
+    public void agregar(char comando) {
+        if(esMotorPasos(comando)) { // El ultimo comando del motor a pasos reemplaza a los anteriores
+            quitarSi(TramaComandos::esMotorPasos);
+        } else if(comando == 'c') { // Centrar vuelve inutiles los movimientos anteriores de servos
+            quitarSi(c -> c == 'c' || opuesto(c) != 0);
+        } else {
+            char contrario = opuesto(comando);
+            if(contrario != 0 && quitarUno(contrario)) {
+                return; // Se cancelan entre si
+            }
+        }
+        if(total == MAX_COMANDOS) {
+            throw new IllegalStateException("Demasiados comandos en la trama");
+        }
+        comandos[total++] = comando;
+    }
+
+    public boolean estaVacia() {
+        return total == 0;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public char getComando(int i) {
+        return comandos[i];
+    }
+
+    public void limpiar() {
+        total = 0;
+    }
+
+    // Quita el comando de la posicion i, los siguientes se recorren
+    public void quitar(int i) {
+        System.arraycopy(comandos, i + 1, comandos, i, total - i - 1);
+        total--;
+    }
+
+    // Convierte la trama al formato ASCII del Arduino: una letra y '\n' por comando
+    public byte[] construir() {
+        byte[] salida = new byte[total * 2];
+        for(int i = 0; i < total; i++) {
+            salida[i * 2] = (byte) comandos[i];
+            salida[i * 2 + 1] = '\n';
+        }
+        return salida;
+    }
+
+    // Funciones auxiliares
+    private static boolean esMotorPasos(char c) {
+        return c == 'L' || c == 'R' || c == 'S';
+    }
+
+    private static char opuesto(char c) {
+        return switch (c) {
+            case 'j' -> 'k';
+            case 'k' -> 'j';
+            case 'i' -> 'm';
+            case 'm' -> 'i';
+            case 'o' -> 'p';
+            case 'p' -> 'o';
+            case 'q' -> 'w';
+            case 'w' -> 'q';
+            default -> 0;
+        };
+    }
+
+    private interface Filtro {
+        boolean coincide(char c);
+    }
+
+    private void quitarSi(Filtro filtro) {
+        int j = 0;
+        for(int i = 0; i < total; i++) {
+            if(!filtro.coincide(comandos[i])) comandos[j++] = comandos[i];
+        }
+        total = j;
+    }
+
+    private boolean quitarUno(char comando) {
+        for(int i = total - 1; i >= 0; i--) {
+            if(comandos[i] == comando) {
+                quitar(i);
+                return true;
+            }
+        }
+        return false;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la TramaComandos
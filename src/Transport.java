@@ -0,0 +1,43 @@
+import java.io.OutputStream; // Flujo por el que se escriben los comandos
+
+// Medio fisico (o simulado) por el que PuertoSerial habla con el Arduino.
+// Permite probar y medir toda la ruta de comandos sin tener una placa conectada.
+public interface Transport {
+    // Recibe los bytes que llegan del otro lado, siempre desde un solo hilo a la vez
+    interface Receptor {
+        void alRecibir(byte[] datos, int cantidad);
+    }
+
+    // Nombre del puerto o destino, para mostrarlo en la interfaz
+    String getNombre();
+
+    // Identidad estable del dispositivo, para recordar datos entre sesiones
+    default String getIdentificador() {
+        return getNombre();
+    }
+
+    // Parametros de la linea serie, los transportes que no son serie los ignoran
+    void configurar(int bauds, int bitsDatos, int bitsParo, int paridad);
+
+    // Abre el transporte y empieza a entregar lo recibido al receptor
+    boolean abrir(Receptor receptor);
+
+    // Igual, pero los hilos propios del transporte (como el lector) corren en el ambito dado.
+    // Los transportes que no crean hilos (TransporteSerial) usan abrir(Receptor)
+    default boolean abrir(Receptor receptor, AmbitoDispositivos ambito) {
+        return abrir(receptor);
+    }
+
+    void cerrar();
+
+    boolean estaAbierto();
+
+    // Flujo de salida, solo es valido mientras el transporte este abierto
+    OutputStream getSalida();
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Interfaz del Transport
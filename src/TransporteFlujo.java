@@ -0,0 +1,95 @@
+import java.io.InputStream; // Utilizado para recibir informacion del otro extremo
+import java.io.OutputStream; // Utilizado para enviar comandos al otro extremo
+
+// Base para los transportes que entregan un par de flujos (socket TCP, pty).
+// Un hilo lector se queda bloqueado en el flujo de entrada y pasa lo leido al receptor; es
+// un hilo virtual, asi que la lectura bloqueante no ocupa un hilo de plataforma.
+public abstract class TransporteFlujo implements Transport {
+    private InputStream entrada;
+    private OutputStream salida;
+    private volatile Thread hiloLector;
+    private volatile boolean abierto;
+    private final byte[] lectura = new byte[256]; // Buffer reutilizable del hilo lector
+
+    // Cada transporte abre su recurso y deja listos los flujos con setFlujos
+    protected abstract void abrirFlujos() throws Exception;
+
+    // Libera el recurso propio del transporte (socket, archivo)
+    protected abstract void cerrarRecurso() throws Exception;
+
+    protected void setFlujos(InputStream entrada, OutputStream salida) {
+        this.entrada = entrada;
+        this.salida = salida;
+    }
+
+    @Override
+    public void configurar(int bauds, int bitsDatos, int bitsParo, int paridad) {
+        // No hay linea fisica que configurar
+    }
+
+    @Override
+    public boolean abrir(Receptor receptor) {
+        return abrir(receptor, AmbitoDispositivos.global());
+    }
+
+    @Override
+    public boolean abrir(Receptor receptor, AmbitoDispositivos ambito) {
+        try {
+            abrirFlujos();
+        } catch(Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+        this.abierto = true;
+        try {
+            this.hiloLector = ambito.iniciar("lector", () -> cicloLector(receptor));
+        } catch(IllegalStateException e) { // El ambito se cerro mientras se abria
+            cerrar();
+            return false;
+        }
+        return true;
+    }
+
+    private void cicloLector(Receptor receptor) {
+        try {
+            int leidos;
+            while(this.abierto && (leidos = this.entrada.read(this.lectura)) >= 0) {
+                if(leidos > 0) receptor.alRecibir(this.lectura, leidos);
+            }
+        } catch(Exception e) {
+            if(this.abierto && !Thread.currentThread().isInterrupted()) e.printStackTrace(); // No al cerrar el ambito
+        }
+        this.abierto = false;
+    }
+
+    @Override
+    public void cerrar() {
+        this.abierto = false;
+        try {
+            cerrarRecurso(); // Desbloquea al hilo lector
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        Thread hilo = this.hiloLector;
+        if(hilo != null) {
+            hilo.interrupt();
+            this.hiloLector = null;
+        }
+    }
+
+    @Override
+    public boolean estaAbierto() {
+        return this.abierto;
+    }
+
+    @Override
+    public OutputStream getSalida() {
+        return this.salida;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del TransporteFlujo
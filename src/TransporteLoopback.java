@@ -0,0 +1,109 @@
+import java.io.OutputStream; // Flujo en memoria que sustituye al puerto
+
+// Transporte en memoria para pruebas y mediciones sin hardware.
+// Cuenta lo que se escribe y, si se pide, lo regresa como si el Arduino lo repitiera.
+// Tambien permite inyectar respuestas como si las mandara la placa.
+public class TransporteLoopback implements Transport {
+    private final String nombre;
+    private volatile boolean abierto;
+    private volatile boolean eco; // Regresar al receptor todo lo que se escribe
+    private volatile Receptor receptor;
+    private long bytesEscritos; // Solo lo modifica el hilo escritor
+    private long escrituras;
+    private final Object bloqueoRecepcion = new Object(); // El receptor no admite dos hilos a la vez
+
+    private final OutputStream salida = new OutputStream() {
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int cantidad) {
+            bytesEscritos += cantidad;
+            escrituras++;
+            if(eco) {
+                if(desde == 0) {
+                    entregar(datos, cantidad);
+                } else {
+                    byte[] copia = new byte[cantidad];
+                    System.arraycopy(datos, desde, copia, 0, cantidad);
+                    entregar(copia, cantidad);
+                }
+            }
+        }
+    };
+
+    // Constructor
+    public TransporteLoopback() {
+        this("loopback");
+    }
+
+    public TransporteLoopback(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public void setEco(boolean eco) {
+        this.eco = eco;
+    }
+
+    public long getBytesEscritos() {
+        return this.bytesEscritos;
+    }
+
+    public long getEscrituras() {
+        return this.escrituras;
+    }
+
+    // Simula que el Arduino mando estos bytes
+    public void inyectar(byte[] datos) {
+        entregar(datos, datos.length);
+    }
+
+    private void entregar(byte[] datos, int cantidad) {
+        Receptor r = this.receptor;
+        if(r == null || !this.abierto) return;
+        synchronized(this.bloqueoRecepcion) {
+            r.alRecibir(datos, cantidad);
+        }
+    }
+
+    @Override
+    public String getNombre() {
+        return this.nombre;
+    }
+
+    @Override
+    public void configurar(int bauds, int bitsDatos, int bitsParo, int paridad) {
+        // No hay linea fisica que configurar
+    }
+
+    @Override
+    public boolean abrir(Receptor receptor) {
+        this.receptor = receptor;
+        this.abierto = true;
+        return true;
+    }
+
+    @Override
+    public void cerrar() {
+        this.abierto = false;
+        this.receptor = null;
+    }
+
+    @Override
+    public boolean estaAbierto() {
+        return this.abierto;
+    }
+
+    @Override
+    public OutputStream getSalida() {
+        return this.salida;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del TransporteLoopback
@@ -0,0 +1,42 @@
+import java.io.FileInputStream; // Lado de lectura de la pty
+import java.io.FileOutputStream; // Lado de escritura de la pty
+
+// Transporte sobre una pseudo terminal de Linux. Sirve para conectar con un simulador
+// del Arduino sin hardware, creando el par con:
+//   socat -d -d pty,raw,echo=0 pty,raw,echo=0
+// y pasando aqui uno de los dos dispositivos (/dev/pts/N). La pty debe estar en modo
+// raw porque Java no puede cambiar los atributos de la terminal.
+public class TransportePty extends TransporteFlujo {
+    private final String ruta;
+    private FileInputStream entrada;
+    private FileOutputStream salida;
+
+    // Constructor
+    public TransportePty(String ruta) {
+        this.ruta = ruta;
+    }
+
+    @Override
+    public String getNombre() {
+        return this.ruta;
+    }
+
+    @Override
+    protected void abrirFlujos() throws Exception {
+        this.entrada = new FileInputStream(this.ruta);
+        this.salida = new FileOutputStream(this.ruta);
+        setFlujos(this.entrada, this.salida);
+    }
+
+    @Override
+    protected void cerrarRecurso() throws Exception {
+        if(this.salida != null) this.salida.close();
+        if(this.entrada != null) this.entrada.close();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del TransportePty
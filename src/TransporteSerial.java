@@ -0,0 +1,105 @@
+import java.io.OutputStream; // Utilizado para enviar comandos al Arduino
+import com.fazecast.jSerialComm.SerialPort; // Utilizado para conectar con el puerto serie
+import com.fazecast.jSerialComm.SerialPortDataListener; // Avisa cuando llegan datos del Arduino
+import com.fazecast.jSerialComm.SerialPortEvent; // Evento de datos disponibles
+
+// Transporte real: un puerto serie de jSerialComm. No tiene hilo lector en el ambito de la
+// conexion: los datos llegan en el hilo de eventos de jSerialComm (un hilo de plataforma que
+// la libreria crea al agregar el oyente y termina al quitarlo en cerrar). Leer con readBytes
+// desde un hilo virtual bloquearia en codigo nativo al hilo portador mientras espera.
+public class TransporteSerial implements Transport {
+    private final SerialPort port; // Puerto al que esta conectado el arduino
+    private OutputStream outstrm; // Utilizado para enviar comandos al Arduino
+    private final byte[] lectura = new byte[256]; // Buffer reutilizable para leer del puerto
+
+    // Constructor
+    public TransporteSerial(SerialPort port) {
+        this.port = port;
+    }
+
+    public SerialPort getPuerto() {
+        return this.port;
+    }
+
+    @Override
+    public String getNombre() {
+        return this.port.getSystemPortName();
+    }
+
+    // Usa VID/PID y numero de serie cuando el sistema los reporta, si no el nombre del puerto
+    @Override
+    public String getIdentificador() {
+        return identificadorDe(this.port);
+    }
+
+    public static String identificadorDe(SerialPort port) {
+        String serie = port.getSerialNumber();
+        if(port.getVendorID() <= 0 || serie == null || serie.isBlank() || serie.equalsIgnoreCase("Unknown")) {
+            return port.getSystemPortName();
+        }
+        return String.format("%04X:%04X:%s", port.getVendorID(), port.getProductID(), serie);
+    }
+
+    @Override
+    public void configurar(int bauds, int bitsDatos, int bitsParo, int paridad) {
+        this.port.setComPortParameters(bauds, bitsDatos, bitsParo, paridad);
+    }
+
+    // Si el puerto ya esta abierto (entregado por el DescubridorPuertos) solo cambia el receptor
+    @Override
+    public boolean abrir(Receptor receptor) {
+        if(this.port.isOpen()) this.port.removeDataListener();
+        else if(!this.port.openPort()) return false;
+        this.outstrm = this.port.getOutputStream();
+        this.port.addDataListener(new SerialPortDataListener() {
+            @Override
+            public int getListeningEvents() {
+                return SerialPort.LISTENING_EVENT_DATA_AVAILABLE;
+            }
+
+            @Override
+            public void serialEvent(SerialPortEvent event) {
+                leerDisponibles(receptor);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void cerrar() {
+        this.port.removeDataListener();
+        try {
+            if(this.outstrm != null) this.outstrm.close();
+        } catch(Exception e) {
+            e.printStackTrace();
+        }
+        this.outstrm = null;
+        if(this.port.isOpen()) this.port.closePort();
+    }
+
+    @Override
+    public boolean estaAbierto() {
+        return this.port.isOpen();
+    }
+
+    @Override
+    public OutputStream getSalida() {
+        return this.outstrm;
+    }
+
+    // Se llama desde el hilo de eventos de jSerialComm cada vez que llegan bytes
+    private void leerDisponibles(Receptor receptor) {
+        int disponibles;
+        while((disponibles = this.port.bytesAvailable()) > 0) {
+            int leidos = this.port.readBytes(this.lectura, Math.min(disponibles, this.lectura.length));
+            if(leidos <= 0) return;
+            receptor.alRecibir(this.lectura, leidos);
+        }
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del TransporteSerial
@@ -0,0 +1,43 @@
+import java.io.BufferedOutputStream; // Junta las escrituras hasta el flush del escritor
+import java.net.InetSocketAddress; // Direccion del otro extremo
+import java.net.Socket; // Conexion TCP local
+
+// Transporte por socket TCP, para hablar con un simulador del Arduino o con un
+// puente de red (por ejemplo "socat TCP-LISTEN:5000 /dev/ttyACM0")
+public class TransporteTcp extends TransporteFlujo {
+    public static final int TIEMPO_CONEXION = 1000; // Milisegundos para conectar
+
+    private final String host;
+    private final int puerto;
+    private Socket socket;
+
+    // Constructor
+    public TransporteTcp(String host, int puerto) {
+        this.host = host;
+        this.puerto = puerto;
+    }
+
+    @Override
+    public String getNombre() {
+        return "tcp://" + this.host + ":" + this.puerto;
+    }
+
+    @Override
+    protected void abrirFlujos() throws Exception {
+        this.socket = new Socket();
+        this.socket.setTcpNoDelay(true); // Los comandos son pequenos, no hay que esperar a juntarlos
+        this.socket.connect(new InetSocketAddress(this.host, this.puerto), TIEMPO_CONEXION);
+        setFlujos(this.socket.getInputStream(), new BufferedOutputStream(this.socket.getOutputStream()));
+    }
+
+    @Override
+    protected void cerrarRecurso() throws Exception {
+        if(this.socket != null) this.socket.close();
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase del TransporteTcp
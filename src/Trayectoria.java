@@ -0,0 +1,114 @@
+// Trayectoria sincronizada de todos los servos entre dos poses. Cada articulacion sigue
+// el mismo perfil normalizado s(u), u = t / duracion, escalado a su propio recorrido, asi
+// que todas arrancan y llegan juntas y ninguna pasa del destino. La duracion es la minima
+// que respeta la velocidad y la aceleracion maximas de cada servo.
+//
+//   TRAPEZOIDAL: acelera, crucero y frena (aceleracion constante por tramos)
+//   CURVA_S:     s(u) = u - sin(2 pi u) / (2 pi), la aceleracion cambia suavemente (jerk finito)
+public final class Trayectoria {
+    public enum Perfil { TRAPEZOIDAL, CURVA_S }
+
+    private final double[] inicio;
+    private final double[] fin;
+    private final Perfil perfil;
+    private final double duracion; // Segundos
+    private final double rampa; // Fraccion de la duracion que dura la aceleracion (trapezoidal)
+
+    private Trayectoria(double[] inicio, double[] fin, Perfil perfil, double duracion, double rampa) {
+        this.inicio = inicio;
+        this.fin = fin;
+        this.perfil = perfil;
+        this.duracion = duracion;
+        this.rampa = rampa;
+    }
+
+    // Planea la trayectoria mas rapida que respeta los limites de cada articulacion
+    public static Trayectoria planear(double[] inicio, double[] fin, double[] velocidades, double[] aceleraciones, Perfil perfil) {
+        int n = inicio.length;
+        if(fin.length != n || velocidades.length != n || aceleraciones.length != n) {
+            throw new IllegalArgumentException("Las poses y los limites deben tener el mismo numero de articulaciones");
+        }
+        double duracion = 0;
+        double rampa = 0.5;
+        for(int i = 0; i < n; i++) {
+            if(velocidades[i] <= 0 || aceleraciones[i] <= 0) {
+                throw new IllegalArgumentException("Limites no positivos en la articulacion " + i);
+            }
+            double d = Math.abs(fin[i] - inicio[i]);
+            if(d == 0) continue;
+            double t;
+            double r;
+            if(perfil == Perfil.CURVA_S) {
+                // Velocidad pico 2d/T y aceleracion pico 2 pi d/T^2
+                t = Math.max(2 * d / velocidades[i], Math.sqrt(2 * Math.PI * d / aceleraciones[i]));
+                r = 0.5;
+            } else if(d * aceleraciones[i] >= velocidades[i] * velocidades[i]) {
+                double ta = velocidades[i] / aceleraciones[i]; // Llega a crucero
+                t = d / velocidades[i] + ta;
+                r = ta / t;
+            } else {
+                double ta = Math.sqrt(d / aceleraciones[i]); // Triangular, no llega a crucero
+                t = 2 * ta;
+                r = 0.5;
+            }
+            if(t > duracion) {
+                duracion = t;
+                rampa = r;
+            }
+        }
+        if(perfil == Perfil.TRAPEZOIDAL && duracion > 0) {
+            // Con la forma de la articulacion critica, las demas podrian pasarse de algun
+            // limite; se alarga la duracion lo necesario (v baja con T, a con T^2)
+            double factor = 1;
+            for(int i = 0; i < n; i++) {
+                double d = Math.abs(fin[i] - inicio[i]);
+                double v = d / ((1 - rampa) * duracion);
+                double a = v / (rampa * duracion);
+                factor = Math.max(factor, Math.max(v / velocidades[i], Math.sqrt(a / aceleraciones[i])));
+            }
+            duracion *= factor;
+        }
+        return new Trayectoria(inicio.clone(), fin.clone(), perfil, duracion, rampa);
+    }
+
+    public double getDuracion() {
+        return duracion;
+    }
+
+    public boolean terminada(double t) {
+        return t >= duracion;
+    }
+
+    // Fraccion del recorrido planeado en el instante t (0 a 1), la misma para todas las articulaciones
+    public double progreso(double t) {
+        if(duracion <= 0 || t >= duracion) return 1;
+        if(t <= 0) return 0;
+        double u = t / duracion;
+        if(perfil == Perfil.CURVA_S) {
+            return u - Math.sin(2 * Math.PI * u) / (2 * Math.PI);
+        }
+        double pico = 1 / (1 - rampa); // Velocidad normalizada de crucero
+        if(u < rampa) return pico * u * u / (2 * rampa);
+        if(u <= 1 - rampa) return pico * (u - rampa / 2);
+        double resta = 1 - u;
+        return 1 - pico * resta * resta / (2 * rampa);
+    }
+
+    // Escribe en destino la posicion de cada articulacion en el instante t (sin crear objetos)
+    public void muestrear(double t, double[] destino) {
+        double s = progreso(t);
+        for(int i = 0; i < inicio.length; i++) {
+            destino[i] = s >= 1 ? fin[i] : inicio[i] + (fin[i] - inicio[i]) * s;
+        }
+    }
+
+    public double getFin(int articulacion) {
+        return fin[articulacion];
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la Trayectoria
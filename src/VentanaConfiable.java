@@ -0,0 +1,139 @@
+// Ventana deslizante para el modo confiable del protocolo binario.
+// Solo deja "en vuelo" tantas tramas como caben en el buffer del Arduino y espera su
+// "OK <secuencia>" (acumulativo) para mandar mas. Como cada trama lleva angulos absolutos,
+// una trama nueva reemplaza a la que esperaba lugar, y al vencer el tiempo se reenvia
+// solo el estado mas reciente.
+public class VentanaConfiable {
+    public static final long TIEMPO_REENVIO = 100_000_000L; // Nanosegundos sin confirmacion antes de reenviar
+
+    // Destino de las tramas que ya pueden salir (la cola del hilo escritor)
+    public interface Salida {
+        void enviar(byte[] trama, long marca);
+    }
+
+    private final Salida salida; // Cola del hilo escritor
+    private final int tamano; // Tramas maximas sin confirmar
+    private final byte[][] enVuelo; // Tramas enviadas y sin confirmar, en orden
+    private final long[] enviadaEn; // Momento (nanoTime) en que salio cada trama
+    private final long[] marcas; // Momento en que se leyo la entrada que produjo cada trama
+    private int inicio; // Posicion de la trama mas antigua
+    private int cantidad; // Tramas en vuelo
+    private byte[] pendiente; // Trama mas nueva esperando lugar en la ventana
+    private long marcaPendiente;
+    private MedidorLatencia medidor; // Opcional, mide el tiempo hasta la confirmacion
+
+    private long confirmadas; // Tramas confirmadas por el Arduino
+    private long reenvios; // Reenvios por tiempo vencido
+    private long colapsadas; // Tramas reemplazadas por una mas nueva antes de salir
+
+    // Constructor
+    public VentanaConfiable(int tamano, Salida salida) {
+        if(tamano < 1) {
+            throw new IllegalArgumentException("La ventana debe admitir al menos una trama");
+        }
+        this.tamano = tamano;
+        this.salida = salida;
+        this.enVuelo = new byte[tamano][];
+        this.enviadaEn = new long[tamano];
+        this.marcas = new long[tamano];
+    }
+
+    public synchronized void setMedidor(MedidorLatencia medidor) {
+        this.medidor = medidor;
+    }
+
+    // Manda la trama si hay lugar, si no la deja pendiente reemplazando a la anterior
+    public synchronized void enviar(byte[] trama, long marca) {
+        if(cantidad < tamano) {
+            transmitir(trama, marca, System.nanoTime());
+        } else {
+            if(pendiente != null) colapsadas++;
+            pendiente = trama;
+            marcaPendiente = marca;
+        }
+    }
+
+    // El Arduino confirmo hasta esta secuencia (incluida)
+    public synchronized void confirmar(int secuencia) {
+        for(int i = 0; i < cantidad; i++) {
+            byte[] trama = enVuelo[(inicio + i) % tamano];
+            if((trama[2] & 0xFF) == (secuencia & 0xFF)) {
+                long ahora = System.nanoTime();
+                for(int j = 0; j <= i; j++) {
+                    int idx = (inicio + j) % tamano;
+                    if(medidor != null) medidor.get(MedidorLatencia.Etapa.CONFIRMACION).registrar(ahora - enviadaEn[idx]);
+                    enVuelo[idx] = null;
+                }
+                inicio = (inicio + i + 1) % tamano;
+                cantidad -= i + 1;
+                confirmadas += i + 1;
+                if(pendiente != null) {
+                    byte[] siguiente = pendiente;
+                    pendiente = null;
+                    transmitir(siguiente, marcaPendiente, ahora);
+                }
+                return;
+            }
+        }
+        // Secuencia desconocida (confirmacion repetida o de una trama ya reemplazada): se ignora
+    }
+
+    // Se llama periodicamente, reenvia el estado mas reciente si la trama mas vieja no se confirmo
+    public synchronized void revisarTiempos(long ahora) {
+        if(cantidad == 0 || ahora - enviadaEn[inicio] < TIEMPO_REENVIO) return;
+        byte[] ultima = pendiente != null ? pendiente : enVuelo[(inicio + cantidad - 1) % tamano];
+        long marca = pendiente != null ? marcaPendiente : marcas[(inicio + cantidad - 1) % tamano];
+        if(pendiente != null) colapsadas += cantidad;
+        else colapsadas += cantidad - 1;
+        vaciar();
+        reenvios++;
+        transmitir(ultima, marca, ahora);
+    }
+
+    public synchronized void reiniciar() {
+        vaciar();
+    }
+
+    private void vaciar() {
+        for(int i = 0; i < tamano; i++) enVuelo[i] = null;
+        inicio = 0;
+        cantidad = 0;
+        pendiente = null;
+    }
+
+    private void transmitir(byte[] trama, long marca, long ahora) {
+        int idx = (inicio + cantidad) % tamano;
+        enVuelo[idx] = trama;
+        enviadaEn[idx] = ahora;
+        marcas[idx] = marca;
+        cantidad++;
+        salida.enviar(trama, marca);
+    }
+
+    // Funciones para consultar el estado de la ventana
+    public synchronized int getEnVuelo() {
+        return cantidad;
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public synchronized long getConfirmadas() {
+        return confirmadas;
+    }
+
+    public synchronized long getReenvios() {
+        return reenvios;
+    }
+
+    public synchronized long getColapsadas() {
+        return colapsadas;
+    }
+}
+
+// /\_/\
+//( o.o )
+// > ^ <
+
+// Clase de la VentanaConfiable